@@ -0,0 +1,33 @@
+package com.cineflex.controller;
+
+import com.cineflex.dto.cartelera.CarteleraResponse;
+import com.cineflex.service.CarteleraService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+@RestController
+@RequestMapping("/api/cartelera")
+@CrossOrigin
+public class CarteleraController {
+
+    private final CarteleraService carteleraService;
+    private final ZoneId zona;
+
+    public CarteleraController(CarteleraService carteleraService,
+                               @Value("${cineflex.estadisticas.zona:America/Bogota}") String zona) {
+        this.carteleraService = carteleraService;
+        this.zona = ZoneId.of(zona);
+    }
+
+    @GetMapping
+    public ResponseEntity<CarteleraResponse> obtener(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        // Sin fecha, el día de hoy en la zona del cine y no en la del servidor
+        return ResponseEntity.ok(carteleraService.obtener(fecha != null ? fecha : LocalDate.now(zona)));
+    }
+}
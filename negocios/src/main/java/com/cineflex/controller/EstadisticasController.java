@@ -0,0 +1,39 @@
+package com.cineflex.controller;
+
+import com.cineflex.model.Reserva;
+import com.cineflex.service.estadisticas.EstadisticasReservas;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stats/reservas")
+@CrossOrigin
+public class EstadisticasController {
+
+    private final EstadisticasReservas estadisticasReservas;
+
+    public EstadisticasController(EstadisticasReservas estadisticasReservas) {
+        this.estadisticasReservas = estadisticasReservas;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> resumen(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("porEstado", estadisticasReservas.porEstado());
+        resumen.put("activas", estadisticasReservas.activas());
+        resumen.put("porDia", estadisticasReservas.porDia(desde, hasta));
+        return ResponseEntity.ok(resumen);
+    }
+
+    @GetMapping("/funciones/{funcionId}")
+    public ResponseEntity<Map<Reserva.Estado, Long>> deFuncion(@PathVariable Long funcionId) {
+        return ResponseEntity.ok(estadisticasReservas.deFuncion(funcionId));
+    }
+}
@@ -1,12 +1,16 @@
 package com.cineflex.controller;
 
+import com.cineflex.dto.funcion.FranjaLibre;
 import com.cineflex.dto.funcion.FuncionRequest;
 import com.cineflex.dto.funcion.FuncionResponse;
+import com.cineflex.dto.funcion.ProgramacionRequest;
 import com.cineflex.service.FuncionService;
+import com.cineflex.service.versiones.VersionesRecursos;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
@@ -19,9 +23,11 @@ import java.util.NoSuchElementException;
 public class FuncionController {
 
     private final FuncionService funcionService;
+    private final VersionesRecursos versiones;
 
-    public FuncionController(FuncionService funcionService) {
+    public FuncionController(FuncionService funcionService, VersionesRecursos versiones) {
         this.funcionService = funcionService;
+        this.versiones = versiones;
     }
 
     @PostMapping
@@ -33,21 +39,50 @@ public class FuncionController {
         }
     }
 
+    @PostMapping("/schedule")
+    public ResponseEntity<List<FuncionResponse>> programar(@Valid @RequestBody ProgramacionRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(funcionService.programar(request));
+        } catch (NoSuchElementException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping
     public ResponseEntity<List<FuncionResponse>> listar(@RequestParam(required = false) Long peliculaId,
-                                                        @RequestParam(required = false) String fecha) {
+                                                        @RequestParam(required = false) String fecha,
+                                                        WebRequest webRequest) {
+        String etag = versiones.etagFunciones();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
             LocalDate f = (fecha == null || fecha.isBlank()) ? null : LocalDate.parse(fecha);
-            return ResponseEntity.ok(funcionService.listar(peliculaId, f));
+            return ResponseEntity.ok().eTag(etag).body(funcionService.listar(peliculaId, f));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/salas/{sala}/libres")
+    public ResponseEntity<List<FranjaLibre>> franjasLibres(@PathVariable String sala,
+                                                           @RequestParam String fecha,
+                                                           @RequestParam(required = false) Integer duracionMin) {
+        try {
+            return ResponseEntity.ok(funcionService.franjasLibres(sala, LocalDate.parse(fecha), duracionMin));
         } catch (DateTimeParseException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<FuncionResponse> detalle(@PathVariable Long id) {
+    public ResponseEntity<FuncionResponse> detalle(@PathVariable Long id, WebRequest webRequest) {
+        String etag = versiones.etagFuncion(id);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
-            return ResponseEntity.ok(funcionService.detalle(id));
+            return ResponseEntity.ok().eTag(etag).body(funcionService.detalle(id));
         } catch (NoSuchElementException e) {
             return ResponseEntity.notFound().build();
         }
@@ -1,12 +1,15 @@
 package com.cineflex.controller;
 
+import com.cineflex.dto.pelicula.PeliculaBusquedaResponse;
 import com.cineflex.dto.pelicula.PeliculaRequest;
 import com.cineflex.dto.pelicula.PeliculaResponse;
 import com.cineflex.service.PeliculaService;
+import com.cineflex.service.versiones.VersionesRecursos;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -17,9 +20,11 @@ import java.util.NoSuchElementException;
 public class PeliculaController {
 
     private final PeliculaService peliculaService;
+    private final VersionesRecursos versiones;
 
-    public PeliculaController(PeliculaService peliculaService) {
+    public PeliculaController(PeliculaService peliculaService, VersionesRecursos versiones) {
         this.peliculaService = peliculaService;
+        this.versiones = versiones;
     }
 
     @PostMapping
@@ -29,14 +34,38 @@ public class PeliculaController {
 
     @GetMapping
     public ResponseEntity<List<PeliculaResponse>> listar(@RequestParam(required = false) String genero,
-                                                          @RequestParam(required = false) String q) {
-        return ResponseEntity.ok(peliculaService.listar(genero, q));
+                                                          @RequestParam(required = false) String q,
+                                                          WebRequest webRequest) {
+        // La ETag se toma antes de leer: si cambia durante la lectura, la próxima consulta vuelve a traer datos
+        String etag = versiones.etagPeliculas();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(peliculaService.listar(genero, q));
+    }
+
+    /**
+     * Igual que el listado, pero con los resultados ordenados por relevancia y los conteos por género.
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<PeliculaBusquedaResponse> buscar(@RequestParam(required = false) String genero,
+                                                           @RequestParam(required = false) String q,
+                                                           WebRequest webRequest) {
+        String etag = versiones.etagPeliculas();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(peliculaService.buscar(genero, q));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<PeliculaResponse> detalle(@PathVariable Long id) {
+    public ResponseEntity<PeliculaResponse> detalle(@PathVariable Long id, WebRequest webRequest) {
+        String etag = versiones.etagPelicula(id);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
-            return ResponseEntity.ok(peliculaService.detalle(id));
+            return ResponseEntity.ok().eTag(etag).body(peliculaService.detalle(id));
         } catch (NoSuchElementException e) {
             return ResponseEntity.notFound().build();
         }
@@ -1,5 +1,8 @@
 package com.cineflex.controller;
 
+import com.cineflex.dto.reserva.ReservaFiltro;
+import com.cineflex.dto.reserva.ReservaLoteResultado;
+import com.cineflex.dto.reserva.ReservaPagina;
 import com.cineflex.dto.reserva.ReservaRequest;
 import com.cineflex.dto.reserva.ReservaResponse;
 import com.cineflex.dto.reserva.ReservaUpdateRequest;
@@ -7,13 +10,27 @@ import com.cineflex.exception.AsientoOcupadoException;
 import com.cineflex.exception.CantidadInvalidaException;
 import com.cineflex.exception.EstadoInvalidoException;
 import com.cineflex.exception.FuncionPasadaException;
+import com.cineflex.model.Reserva;
+import com.cineflex.service.ExportacionReservaService;
 import com.cineflex.service.ReservaService;
+import com.cineflex.service.asientos.CanalAsientos;
+import com.cineflex.service.idempotencia.RegistroIdempotencia;
+import com.cineflex.service.versiones.VersionesRecursos;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -23,13 +40,36 @@ import java.util.NoSuchElementException;
 public class ReservaController {
 
     private final ReservaService reservaService;
-
-    public ReservaController(ReservaService reservaService) {
+    private final CanalAsientos canalAsientos;
+    private final ExportacionReservaService exportacionReservaService;
+    private final VersionesRecursos versiones;
+    private final RegistroIdempotencia idempotencia;
+
+    public ReservaController(ReservaService reservaService, CanalAsientos canalAsientos,
+                             ExportacionReservaService exportacionReservaService, VersionesRecursos versiones,
+                             RegistroIdempotencia idempotencia) {
         this.reservaService = reservaService;
+        this.canalAsientos = canalAsientos;
+        this.exportacionReservaService = exportacionReservaService;
+        this.versiones = versiones;
+        this.idempotencia = idempotencia;
     }
 
+    /**
+     * Con Idempotency-Key un reintento recibe la respuesta de la primera ejecución en vez de crear otra reserva.
+     */
     @PostMapping
-    public ResponseEntity<ReservaResponse> crear(@Valid @RequestBody ReservaRequest request) {
+    public ResponseEntity<ReservaResponse> crear(@Valid @RequestBody ReservaRequest request,
+                                                 @RequestHeader(value = RegistroIdempotencia.CABECERA, required = false) String claveIdempotencia,
+                                                 HttpServletRequest http) {
+        if (claveIdempotencia != null) {
+            return idempotencia.ejecutar("POST /api/reservas", ambito(http), claveIdempotencia, request,
+                    ReservaResponse.class, () -> crearReserva(request));
+        }
+        return crearReserva(request);
+    }
+
+    private ResponseEntity<ReservaResponse> crearReserva(ReservaRequest request) {
         try {
             // Las excepciones serán manejadas por GlobalExceptionHandler
             return ResponseEntity.status(HttpStatus.CREATED).body(reservaService.crear(request));
@@ -43,10 +83,51 @@ public class ReservaController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<ReservaLoteResultado>> crearLote(@RequestBody List<ReservaRequest> requests) {
+        return ResponseEntity.ok(reservaService.crearLote(requests));
+    }
+
+    /**
+     * Sin parámetros de paginación devuelve el listado completo, como antes. Con cursor, limit,
+     * estado, desde o hasta devuelve una página y, si hay más, el cursor siguiente en X-Next-Cursor.
+     */
     @GetMapping
     @Transactional(readOnly = true)
-    public ResponseEntity<List<ReservaResponse>> listar(@RequestParam(required = false) Long funcionId) {
-        return ResponseEntity.ok(reservaService.listar(funcionId));
+    public ResponseEntity<List<ReservaResponse>> listar(@RequestParam(required = false) Long funcionId,
+                                                        @RequestParam(required = false) Reserva.Estado estado,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limit) {
+        if (estado == null && desde == null && hasta == null && cursor == null && limit == null) {
+            return ResponseEntity.ok(reservaService.listar(funcionId));
+        }
+        ReservaFiltro filtro = new ReservaFiltro();
+        filtro.setFuncionId(funcionId);
+        filtro.setEstado(estado);
+        filtro.setDesde(desde);
+        filtro.setHasta(hasta);
+        filtro.setCursor(cursor);
+        filtro.setLimite(limit);
+        ReservaPagina pagina = reservaService.listarPagina(filtro);
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (pagina.getSiguienteCursor() != null) {
+            respuesta.header("X-Next-Cursor", pagina.getSiguienteCursor());
+        }
+        return respuesta.body(pagina.getReservas());
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "csv") String format,
+                                                          @RequestParam(required = false) Long funcionId) {
+        ExportacionReservaService.Formato formato = ExportacionReservaService.Formato.desde(format);
+        StreamingResponseBody cuerpo = salida -> exportacionReservaService.exportar(funcionId, formato, salida);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, formato.getContentType() + ";charset=UTF-8")
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("reservas." + formato.getExtension()).build().toString())
+                .body(cuerpo);
     }
 
     @GetMapping("/{id}")
@@ -82,7 +163,17 @@ public class ReservaController {
     }
 
     @PutMapping("/{id}/pagar")
-    public ResponseEntity<ReservaResponse> pagar(@PathVariable Long id) {
+    public ResponseEntity<ReservaResponse> pagar(@PathVariable Long id,
+                                                 @RequestHeader(value = RegistroIdempotencia.CABECERA, required = false) String claveIdempotencia,
+                                                 HttpServletRequest http) {
+        if (claveIdempotencia != null) {
+            return idempotencia.ejecutar("PUT /api/reservas/{id}/pagar", ambito(http), claveIdempotencia, id,
+                    ReservaResponse.class, () -> pagarReserva(id));
+        }
+        return pagarReserva(id);
+    }
+
+    private ResponseEntity<ReservaResponse> pagarReserva(Long id) {
         try {
             return ResponseEntity.ok(reservaService.pagar(id));
         } catch (NoSuchElementException e) {
@@ -92,6 +183,11 @@ public class ReservaController {
         }
     }
 
+    // Ámbito de la Idempotency-Key: el usuario del token si lo hay y si no la IP del cliente
+    private static String ambito(HttpServletRequest http) {
+        return http.getUserPrincipal() != null ? "u:" + http.getUserPrincipal().getName() : "ip:" + http.getRemoteAddr();
+    }
+
     @PutMapping("/{id}/cancelar")
     public ResponseEntity<ReservaResponse> cancelar(@PathVariable Long id) {
         try {
@@ -104,22 +200,37 @@ public class ReservaController {
     }
 
     @GetMapping("/funciones/{funcionId}/asientos-disponibles")
-    public ResponseEntity<List<String>> obtenerAsientosDisponibles(@PathVariable Long funcionId) {
+    public ResponseEntity<List<String>> obtenerAsientosDisponibles(@PathVariable Long funcionId, WebRequest webRequest) {
+        String etag = versiones.etagAsientos(funcionId);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
-            return ResponseEntity.ok(reservaService.obtenerAsientosDisponibles(funcionId));
+            return ResponseEntity.ok().eTag(etag).body(reservaService.obtenerAsientosDisponibles(funcionId));
         } catch (NoSuchElementException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
     @GetMapping("/funciones/{funcionId}/asientos-ocupados")
-    public ResponseEntity<List<String>> obtenerAsientosOcupados(@PathVariable Long funcionId) {
+    public ResponseEntity<List<String>> obtenerAsientosOcupados(@PathVariable Long funcionId, WebRequest webRequest) {
+        String etag = versiones.etagAsientos(funcionId);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
-            return ResponseEntity.ok(reservaService.obtenerAsientosOcupados(funcionId));
+            return ResponseEntity.ok().eTag(etag).body(reservaService.obtenerAsientosOcupados(funcionId));
         } catch (NoSuchElementException e) {
             return ResponseEntity.notFound().build();
         }
     }
-}
-
 
+    @GetMapping(path = "/funciones/{funcionId}/asientos/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAsientos(@PathVariable Long funcionId) {
+        try {
+            return ResponseEntity.ok(canalAsientos.suscribir(funcionId));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package com.cineflex.dto.cartelera;
+
+public record CarteleraFuncion(Long id, String hora, String sala, Double precio, int capacidad, int asientosLibres) {
+}
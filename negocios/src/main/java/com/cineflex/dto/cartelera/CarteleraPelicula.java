@@ -0,0 +1,10 @@
+package com.cineflex.dto.cartelera;
+
+import java.util.List;
+
+public record CarteleraPelicula(Long id, String titulo, String genero, Integer duracionMin, String clasificacion,
+                                String imagenUrl, List<CarteleraFuncion> funciones) {
+    public CarteleraPelicula {
+        funciones = List.copyOf(funciones);
+    }
+}
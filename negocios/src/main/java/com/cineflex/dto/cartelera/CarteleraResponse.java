@@ -0,0 +1,10 @@
+package com.cineflex.dto.cartelera;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record CarteleraResponse(LocalDate fecha, List<CarteleraPelicula> peliculas) {
+    public CarteleraResponse {
+        peliculas = List.copyOf(peliculas);
+    }
+}
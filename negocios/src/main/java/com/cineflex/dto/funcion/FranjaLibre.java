@@ -0,0 +1,6 @@
+package com.cineflex.dto.funcion;
+
+import java.time.LocalDateTime;
+
+public record FranjaLibre(LocalDateTime inicio, LocalDateTime fin, long minutos) {
+}
@@ -0,0 +1,35 @@
+package com.cineflex.dto.funcion;
+
+import jakarta.validation.constraints.*;
+import java.util.List;
+
+public class ProgramacionRequest {
+    @NotNull
+    private Long peliculaId;
+    @NotBlank
+    private String desde; // ISO yyyy-MM-dd
+    @NotBlank
+    private String hasta; // ISO yyyy-MM-dd, inclusive
+    @NotEmpty
+    private List<@NotBlank String> horas; // HH:mm
+    @NotEmpty
+    private List<@NotBlank String> salas;
+    private List<String> dias; // MONDAY..SUNDAY; vacío = todos los días
+    @Positive
+    private Double precio;
+
+    public Long getPeliculaId() { return peliculaId; }
+    public void setPeliculaId(Long peliculaId) { this.peliculaId = peliculaId; }
+    public String getDesde() { return desde; }
+    public void setDesde(String desde) { this.desde = desde; }
+    public String getHasta() { return hasta; }
+    public void setHasta(String hasta) { this.hasta = hasta; }
+    public List<String> getHoras() { return horas; }
+    public void setHoras(List<String> horas) { this.horas = horas; }
+    public List<String> getSalas() { return salas; }
+    public void setSalas(List<String> salas) { this.salas = salas; }
+    public List<String> getDias() { return dias; }
+    public void setDias(List<String> dias) { this.dias = dias; }
+    public Double getPrecio() { return precio; }
+    public void setPrecio(Double precio) { this.precio = precio; }
+}
@@ -0,0 +1,23 @@
+package com.cineflex.dto.pelicula;
+
+import java.util.List;
+import java.util.Map;
+
+public class PeliculaBusquedaResponse {
+    private List<PeliculaResponse> resultados;
+    private Map<String, Long> generos;
+    private int total;
+
+    public PeliculaBusquedaResponse(List<PeliculaResponse> resultados, Map<String, Long> generos) {
+        this.resultados = resultados;
+        this.generos = generos;
+        this.total = resultados.size();
+    }
+
+    public List<PeliculaResponse> getResultados() { return resultados; }
+    public void setResultados(List<PeliculaResponse> resultados) { this.resultados = resultados; }
+    public Map<String, Long> getGeneros() { return generos; }
+    public void setGeneros(Map<String, Long> generos) { this.generos = generos; }
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+}
@@ -0,0 +1,27 @@
+package com.cineflex.dto.reserva;
+
+import com.cineflex.model.Reserva;
+
+import java.time.LocalDate;
+
+public class ReservaFiltro {
+    private Long funcionId;
+    private Reserva.Estado estado;
+    private LocalDate desde;
+    private LocalDate hasta;
+    private String cursor;
+    private Integer limite;
+
+    public Long getFuncionId() { return funcionId; }
+    public void setFuncionId(Long funcionId) { this.funcionId = funcionId; }
+    public Reserva.Estado getEstado() { return estado; }
+    public void setEstado(Reserva.Estado estado) { this.estado = estado; }
+    public LocalDate getDesde() { return desde; }
+    public void setDesde(LocalDate desde) { this.desde = desde; }
+    public LocalDate getHasta() { return hasta; }
+    public void setHasta(LocalDate hasta) { this.hasta = hasta; }
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+    public Integer getLimite() { return limite; }
+    public void setLimite(Integer limite) { this.limite = limite; }
+}
@@ -0,0 +1,37 @@
+package com.cineflex.dto.reserva;
+
+public class ReservaLoteResultado {
+    private int indice;
+    private boolean exito;
+    private ReservaResponse reserva;
+    private String error;
+    private String mensaje;
+
+    public static ReservaLoteResultado creada(int indice, ReservaResponse reserva) {
+        ReservaLoteResultado r = new ReservaLoteResultado();
+        r.setIndice(indice);
+        r.setExito(true);
+        r.setReserva(reserva);
+        return r;
+    }
+
+    public static ReservaLoteResultado fallida(int indice, String error, String mensaje) {
+        ReservaLoteResultado r = new ReservaLoteResultado();
+        r.setIndice(indice);
+        r.setExito(false);
+        r.setError(error);
+        r.setMensaje(mensaje);
+        return r;
+    }
+
+    public int getIndice() { return indice; }
+    public void setIndice(int indice) { this.indice = indice; }
+    public boolean isExito() { return exito; }
+    public void setExito(boolean exito) { this.exito = exito; }
+    public ReservaResponse getReserva() { return reserva; }
+    public void setReserva(ReservaResponse reserva) { this.reserva = reserva; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    public String getMensaje() { return mensaje; }
+    public void setMensaje(String mensaje) { this.mensaje = mensaje; }
+}
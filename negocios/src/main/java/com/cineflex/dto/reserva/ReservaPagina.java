@@ -0,0 +1,18 @@
+package com.cineflex.dto.reserva;
+
+import java.util.List;
+
+public class ReservaPagina {
+    private List<ReservaResponse> reservas;
+    private String siguienteCursor;
+
+    public ReservaPagina(List<ReservaResponse> reservas, String siguienteCursor) {
+        this.reservas = reservas;
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    public List<ReservaResponse> getReservas() { return reservas; }
+    public void setReservas(List<ReservaResponse> reservas) { this.reservas = reservas; }
+    public String getSiguienteCursor() { return siguienteCursor; }
+    public void setSiguienteCursor(String siguienteCursor) { this.siguienteCursor = siguienteCursor; }
+}
@@ -0,0 +1,7 @@
+package com.cineflex.exception;
+
+public class HorarioOcupadoException extends RuntimeException {
+    public HorarioOcupadoException(String message) {
+        super(message);
+    }
+}
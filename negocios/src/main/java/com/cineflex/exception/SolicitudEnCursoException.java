@@ -0,0 +1,7 @@
+package com.cineflex.exception;
+
+public class SolicitudEnCursoException extends RuntimeException {
+    public SolicitudEnCursoException(String message) {
+        super(message);
+    }
+}
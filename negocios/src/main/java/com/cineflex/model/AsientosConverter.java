@@ -0,0 +1,64 @@
+package com.cineflex.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Guarda los asientos de una reserva como una máscara de bits sobre los ordinales de
+ * {@link DistribucionAsientos}: el bit {@code i} (bit {@code i % 8} del byte {@code i / 8})
+ * indica que el asiento de ordinal {@code i} está incluido. Se omiten los bytes finales en cero,
+ * así que una reserva de la fila A ocupa 2 bytes y la sala más grande (A..Z) 33.
+ * Al leer, los asientos vuelven ordenados por fila y número.
+ */
+@Converter
+public class AsientosConverter implements AttributeConverter<List<String>, byte[]> {
+
+    public static final int LONGITUD_MAXIMA = (26 * DistribucionAsientos.ASIENTOS_POR_FILA + 7) / 8;
+
+    @Override
+    public byte[] convertToDatabaseColumn(List<String> asientos) {
+        return codificar(asientos);
+    }
+
+    @Override
+    public List<String> convertToEntityAttribute(byte[] mascara) {
+        return decodificar(mascara);
+    }
+
+    public static byte[] codificar(Collection<String> asientos) {
+        if (asientos == null || asientos.isEmpty()) {
+            return new byte[0];
+        }
+        byte[] mascara = new byte[LONGITUD_MAXIMA];
+        int longitud = 0;
+        for (String asiento : asientos) {
+            int i = DistribucionAsientos.ordinal(asiento);
+            if (i < 0) {
+                throw new IllegalArgumentException("Asiento inválido: " + asiento);
+            }
+            mascara[i >>> 3] |= (byte) (1 << (i & 7));
+            longitud = Math.max(longitud, (i >>> 3) + 1);
+        }
+        return Arrays.copyOf(mascara, longitud);
+    }
+
+    public static List<String> decodificar(byte[] mascara) {
+        List<String> asientos = new ArrayList<>();
+        if (mascara == null) {
+            return asientos;
+        }
+        for (int b = 0; b < mascara.length; b++) {
+            int bits = mascara[b] & 0xFF;
+            while (bits != 0) {
+                asientos.add(DistribucionAsientos.etiqueta((b << 3) + Integer.numberOfTrailingZeros(bits)));
+                bits &= bits - 1;
+            }
+        }
+        return asientos;
+    }
+}
@@ -0,0 +1,66 @@
+package com.cineflex.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Distribución de asientos de una sala: filas de 10 asientos identificadas con letras
+ * (A1..A10, B1..B10, ...). Cada asiento tiene un ordinal 0..capacidad-1 que se usa
+ * como índice en los mapas de ocupación.
+ */
+public final class DistribucionAsientos {
+
+    public static final int ASIENTOS_POR_FILA = 10;
+    public static final int CAPACIDAD_POR_DEFECTO = 50;
+
+    private DistribucionAsientos() { }
+
+    public static int capacidad(Funcion funcion) {
+        return funcion.getCapacidad() != null ? funcion.getCapacidad() : CAPACIDAD_POR_DEFECTO;
+    }
+
+    /**
+     * Devuelve el ordinal de la etiqueta o -1 si no corresponde a ningún asiento de la distribución.
+     * Sólo se acepta la forma canónica que produce {@link #etiqueta}: "A01" no es "A1", porque el
+     * reclamo del asiento se indexa por la etiqueta y dos grafías permitirían reservarlo dos veces.
+     */
+    public static int ordinal(String etiqueta) {
+        if (etiqueta == null || etiqueta.length() < 2 || etiqueta.length() > 3 || etiqueta.charAt(1) == '0') {
+            return -1;
+        }
+        char letra = etiqueta.charAt(0);
+        if (letra < 'A' || letra > 'Z') {
+            return -1;
+        }
+        int numero = 0;
+        for (int i = 1; i < etiqueta.length(); i++) {
+            char c = etiqueta.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            numero = numero * 10 + (c - '0');
+        }
+        if (numero < 1 || numero > ASIENTOS_POR_FILA) {
+            return -1;
+        }
+        return (letra - 'A') * ASIENTOS_POR_FILA + (numero - 1);
+    }
+
+    public static int ordinal(String etiqueta, int capacidad) {
+        int ordinal = ordinal(etiqueta);
+        return ordinal < capacidad ? ordinal : -1;
+    }
+
+    public static String etiqueta(int ordinal) {
+        char letra = (char) ('A' + ordinal / ASIENTOS_POR_FILA);
+        return String.valueOf(letra) + (ordinal % ASIENTOS_POR_FILA + 1);
+    }
+
+    public static List<String> etiquetas(int capacidad) {
+        List<String> asientos = new ArrayList<>(capacidad);
+        for (int i = 0; i < capacidad; i++) {
+            asientos.add(etiqueta(i));
+        }
+        return asientos;
+    }
+}
@@ -7,8 +7,10 @@ import java.time.LocalTime;
 @Entity
 public class Funcion {
 
+    // Secuencia con asignación en bloque (pooled): los ids se reservan de a 50 y los INSERT pueden ir en lote
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "funcion_seq")
+    @SequenceGenerator(name = "funcion_seq", sequenceName = "funcion_seq", allocationSize = 50)
     private Long id;
 
     private LocalDate fecha;
@@ -7,7 +7,8 @@ import java.time.Instant;
 public class Pelicula {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pelicula_seq")
+    @SequenceGenerator(name = "pelicula_seq", sequenceName = "pelicula_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
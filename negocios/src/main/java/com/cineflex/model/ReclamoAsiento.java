@@ -0,0 +1,48 @@
+package com.cineflex.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Reclamo de un asiento de una función por parte de una reserva activa (CREADA o PAGADA).
+ * La clave primaria (funcion_id, asiento) garantiza en la base de datos que un asiento
+ * no pueda quedar reservado dos veces.
+ */
+@Entity
+@Table(name = "reclamo_asiento", indexes = @Index(name = "idx_reclamo_asiento_reserva", columnList = "reserva_id"))
+public class ReclamoAsiento implements Persistable<ReclamoAsientoId> {
+
+    @EmbeddedId
+    private ReclamoAsientoId id;
+
+    @Column(name = "reserva_id", nullable = false)
+    private Long reservaId;
+
+    // La clave es asignada, así que se marca como nuevo para que save() haga persist sin un SELECT previo
+    @Transient
+    private boolean nuevo = true;
+
+    public ReclamoAsiento() { }
+
+    public ReclamoAsiento(Long funcionId, String asiento, Long reservaId) {
+        this.id = new ReclamoAsientoId(funcionId, asiento);
+        this.reservaId = reservaId;
+    }
+
+    @Override
+    public ReclamoAsientoId getId() { return id; }
+    public void setId(ReclamoAsientoId id) { this.id = id; }
+    public Long getReservaId() { return reservaId; }
+    public void setReservaId(Long reservaId) { this.reservaId = reservaId; }
+
+    @Override
+    public boolean isNew() {
+        return nuevo;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarPersistido() {
+        this.nuevo = false;
+    }
+}
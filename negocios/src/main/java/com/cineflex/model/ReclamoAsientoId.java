@@ -0,0 +1,40 @@
+package com.cineflex.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class ReclamoAsientoId implements Serializable {
+
+    @Column(name = "funcion_id", nullable = false)
+    private Long funcionId;
+
+    @Column(nullable = false, length = 4)
+    private String asiento;
+
+    public ReclamoAsientoId() { }
+
+    public ReclamoAsientoId(Long funcionId, String asiento) {
+        this.funcionId = funcionId;
+        this.asiento = asiento;
+    }
+
+    public Long getFuncionId() { return funcionId; }
+    public void setFuncionId(Long funcionId) { this.funcionId = funcionId; }
+    public String getAsiento() { return asiento; }
+    public void setAsiento(String asiento) { this.asiento = asiento; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ReclamoAsientoId other)) return false;
+        return Objects.equals(funcionId, other.funcionId) && Objects.equals(asiento, other.asiento);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(funcionId, asiento);
+    }
+}
@@ -6,18 +6,24 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_reserva_created_at_id", columnList = "created_at desc, id desc"),
+        @Index(name = "idx_reserva_funcion_created_at_id", columnList = "funcion_id, created_at desc, id desc")
+})
 public class Reserva {
 
     public enum Estado { CREADA, PAGADA, CANCELADA }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reserva_seq")
+    @SequenceGenerator(name = "reserva_seq", sequenceName = "reserva_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private String nombreCliente;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @Convert(converter = AsientosConverter.class)
+    @Column(name = "asientos_mask", length = AsientosConverter.LONGITUD_MAXIMA)
     private List<String> asientos = new ArrayList<>();
 
     private Integer cantidad;
@@ -28,6 +34,12 @@ public class Reserva {
     @ManyToOne(optional = false)
     private Funcion funcion;
 
+    // Un pago o una edición que se cruza con el barrido de retenciones falla en vez de pisar la cancelación.
+    // Nula hasta persistir: Spring Data la usa para distinguir una reserva nueva (persist) de una existente (merge)
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     private Instant createdAt = Instant.now();
     private Instant paidAt;
     private Instant cancelledAt;
@@ -59,6 +71,9 @@ public class Reserva {
     public Instant getCancelledAt() { return cancelledAt; }
     public void setCancelledAt(Instant cancelledAt) { this.cancelledAt = cancelledAt; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public Double getPrecioTotal() {
         if (cantidad == null || funcion == null || funcion.getPrecio() == null) {
             return 0.0;
@@ -0,0 +1,84 @@
+package com.cineflex.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Respuesta guardada de una operación con cabecera Idempotency-Key. La clave primaria es
+ * "operación + ámbito del cliente + clave", así que insertar la fila EN_CURSO sirve también para que dos nodos no
+ * ejecuten a la vez la misma solicitud.
+ */
+@Entity
+@Table(name = "respuesta_idempotente", indexes = @Index(name = "idx_respuesta_idempotente_expira", columnList = "expira_en"))
+public class RespuestaIdempotente implements Persistable<String> {
+
+    public enum Estado { EN_CURSO, COMPLETADA }
+
+    public static final int LONGITUD_CLAVE = 300;
+
+    @Id
+    @Column(length = LONGITUD_CLAVE)
+    private String clave;
+
+    // SHA-256 en hexadecimal de la solicitud, para detectar una clave reutilizada con otro cuerpo
+    @Column(nullable = false, length = 64)
+    private String huella;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Estado estado = Estado.EN_CURSO;
+
+    private Integer status;
+
+    // Sin límite de longitud: una respuesta que no se guardara haría que el reintento volviera a ejecutar
+    @Column(columnDefinition = "text")
+    private String cuerpo;
+
+    @Column(nullable = false)
+    private Instant createdAt = Instant.now();
+
+    @Column(name = "expira_en", nullable = false)
+    private Instant expiraEn;
+
+    // La clave es asignada, así que se marca como nuevo para que save() haga persist sin un SELECT previo
+    @Transient
+    private boolean nuevo = true;
+
+    public RespuestaIdempotente() { }
+
+    public RespuestaIdempotente(String clave, String huella, Instant expiraEn) {
+        this.clave = clave;
+        this.huella = huella;
+        this.expiraEn = expiraEn;
+    }
+
+    @Override
+    public String getId() { return clave; }
+    public String getClave() { return clave; }
+    public void setClave(String clave) { this.clave = clave; }
+    public String getHuella() { return huella; }
+    public void setHuella(String huella) { this.huella = huella; }
+    public Estado getEstado() { return estado; }
+    public void setEstado(Estado estado) { this.estado = estado; }
+    public Integer getStatus() { return status; }
+    public void setStatus(Integer status) { this.status = status; }
+    public String getCuerpo() { return cuerpo; }
+    public void setCuerpo(String cuerpo) { this.cuerpo = cuerpo; }
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    public Instant getExpiraEn() { return expiraEn; }
+    public void setExpiraEn(Instant expiraEn) { this.expiraEn = expiraEn; }
+
+    @Override
+    public boolean isNew() {
+        return nuevo;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarPersistido() {
+        this.nuevo = false;
+    }
+}
@@ -1,15 +1,28 @@
 package com.cineflex.repository;
 
 import com.cineflex.model.Funcion;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 public interface FuncionRepository extends JpaRepository<Funcion, Long> {
     @Query("select f from Funcion f where (:peliculaId is null or f.pelicula.id = :peliculaId) and (:fecha is null or f.fecha = :fecha)")
     List<Funcion> findByFilters(@Param("peliculaId") Long peliculaId, @Param("fecha") LocalDate fecha);
+
+    @Query("select f from Funcion f join fetch f.pelicula p where f.fecha = :fecha order by p.titulo, f.hora, f.id")
+    List<Funcion> findByFechaConPelicula(@Param("fecha") LocalDate fecha);
+
+    @Query("select f.id, p.id, f.sala, f.fecha, f.hora, p.duracionMin from Funcion f join f.pelicula p")
+    List<Object[]> findHorariosConDuracion();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select f from Funcion f where f.id = :id")
+    Optional<Funcion> findByIdParaActualizar(@Param("id") Long id);
 }
 
 
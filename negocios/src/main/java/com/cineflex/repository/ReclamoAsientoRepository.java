@@ -0,0 +1,21 @@
+package com.cineflex.repository;
+
+import com.cineflex.model.ReclamoAsiento;
+import com.cineflex.model.ReclamoAsientoId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface ReclamoAsientoRepository extends JpaRepository<ReclamoAsiento, ReclamoAsientoId> {
+    @Modifying
+    @Query("delete from ReclamoAsiento c where c.reservaId = :reservaId")
+    int deleteByReservaId(@Param("reservaId") Long reservaId);
+
+    @Modifying
+    @Query("delete from ReclamoAsiento c where c.reservaId in " +
+           "(select r.id from Reserva r where r.id in :ids and r.estado = com.cineflex.model.Reserva.Estado.CANCELADA)")
+    int deleteByReservasCanceladas(@Param("ids") Collection<Long> ids);
+}
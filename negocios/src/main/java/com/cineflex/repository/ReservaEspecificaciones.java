@@ -0,0 +1,55 @@
+package com.cineflex.repository;
+
+import com.cineflex.model.Reserva;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+
+/**
+ * Filtros del listado de reservas. Cada filtro sólo se agrega si se usa, así la consulta
+ * resultante puede recorrer el índice (created_at, id) sin condiciones "parámetro is null".
+ */
+public final class ReservaEspecificaciones {
+
+    private ReservaEspecificaciones() { }
+
+    public static Specification<Reserva> deFuncion(Long funcionId) {
+        return (root, query, cb) -> cb.equal(root.get("funcion").get("id"), funcionId);
+    }
+
+    public static Specification<Reserva> conEstado(Reserva.Estado estado) {
+        return (root, query, cb) -> cb.equal(root.get("estado"), estado);
+    }
+
+    public static Specification<Reserva> creadaDesde(Instant desde) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), desde);
+    }
+
+    public static Specification<Reserva> creadaAntesDe(Instant hasta) {
+        return (root, query, cb) -> cb.lessThan(root.get("createdAt"), hasta);
+    }
+
+    /**
+     * Reservas posteriores al cursor en orden (createdAt desc, id desc). El conjunto redundante
+     * {@code createdAt <= c} acota el OR a un único rango del índice (created_at, id), así que el
+     * planificador lo usa como condición de búsqueda y no sólo como filtro.
+     */
+    public static Specification<Reserva> despuesDe(Instant createdAt, Long id) {
+        return (root, query, cb) -> cb.and(
+                cb.lessThanOrEqualTo(root.get("createdAt"), createdAt),
+                cb.or(cb.lessThan(root.get("createdAt"), createdAt),
+                        cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id))));
+    }
+
+    /**
+     * Trae la función en la misma consulta (el mapper la necesita para cada reserva).
+     */
+    public static Specification<Reserva> conFuncion() {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class && query.getResultType() != long.class) {
+                root.fetch("funcion");
+            }
+            return null;
+        };
+    }
+}
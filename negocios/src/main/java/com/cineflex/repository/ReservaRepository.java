@@ -2,20 +2,75 @@ package com.cineflex.repository;
 
 import com.cineflex.model.Reserva;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface ReservaRepository extends JpaRepository<Reserva, Long> {
+public interface ReservaRepository extends JpaRepository<Reserva, Long>, JpaSpecificationExecutor<Reserva> {
     @Query("select r from Reserva r where (:funcionId is null or r.funcion.id = :funcionId) order by r.createdAt desc")
     List<Reserva> findByFilters(@Param("funcionId") Long funcionId);
 
+    // Recorre las reservas con un cursor (fetch size acotado); hay que consumirlo dentro de una transacción
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select r from Reserva r join fetch r.funcion f join fetch f.pelicula " +
+           "where (:funcionId is null or f.id = :funcionId) order by r.createdAt desc, r.id desc")
+    Stream<Reserva> streamParaExportar(@Param("funcionId") Long funcionId);
+
     @Query("select r from Reserva r where r.funcion.id = :funcionId and r.estado in :estados")
     List<Reserva> findByFuncionIdAndEstadoIn(@Param("funcionId") Long funcionId, @Param("estados") List<Reserva.Estado> estados);
 
-    @Query("select distinct asiento from Reserva r join r.asientos asiento where r.funcion.id = :funcionId and r.estado in :estados")
-    List<String> findAsientosOcupadosByFuncionId(@Param("funcionId") Long funcionId, @Param("estados") List<Reserva.Estado> estados);
+    // Cada fila son los asientos de una reserva (columna asientos_mask ya decodificada)
+    @Query("select r.asientos from Reserva r where r.funcion.id = :funcionId and r.estado in :estados")
+    List<List<String>> findAsientosOcupadosByFuncionId(@Param("funcionId") Long funcionId, @Param("estados") List<Reserva.Estado> estados);
+
+    // Asientos de reservas pagadas o con retención todavía vigente (creadas después del límite)
+    @Query("select r.asientos from Reserva r where r.funcion.id = :funcionId " +
+           "and (r.estado = com.cineflex.model.Reserva.Estado.PAGADA " +
+           "or (r.estado = com.cineflex.model.Reserva.Estado.CREADA and r.createdAt > :limiteRetencion))")
+    List<List<String>> findAsientosOcupadosVigentes(@Param("funcionId") Long funcionId, @Param("limiteRetencion") Instant limiteRetencion);
+
+    // Filas [funcionId, asientos ocupados] de las funciones de un día, con el mismo criterio de vigencia
+    @Query("select r.funcion.id, sum(r.cantidad) from Reserva r where r.funcion.fecha = :fecha " +
+           "and (r.estado = com.cineflex.model.Reserva.Estado.PAGADA " +
+           "or (r.estado = com.cineflex.model.Reserva.Estado.CREADA and r.createdAt > :limiteRetencion)) " +
+           "group by r.funcion.id")
+    List<Object[]> contarAsientosOcupadosPorFecha(@Param("fecha") LocalDate fecha, @Param("limiteRetencion") Instant limiteRetencion);
+
+    List<Reserva> findByEstado(Reserva.Estado estado);
+
+    @Modifying
+    // Sube la versión para que un pago o una edición concurrente sobre la misma reserva no la pise
+    @Query("update Reserva r set r.estado = com.cineflex.model.Reserva.Estado.CANCELADA, r.cancelledAt = :ahora, " +
+           "r.version = r.version + 1 where r.id in :ids and r.estado = com.cineflex.model.Reserva.Estado.CREADA")
+    int cancelarRetencionesVencidas(@Param("ids") Collection<Long> ids, @Param("ahora") Instant ahora);
+
+    // Filas [id, estado, version] de las reservas indicadas que todavía existen
+    @Query("select r.id, r.estado, r.version from Reserva r where r.id in :ids")
+    List<Object[]> findEstadosYVersiones(@Param("ids") Collection<Long> ids);
+
+    @Query("select r.funcion.id from Reserva r where r.id = :id")
+    Optional<Long> findFuncionIdById(@Param("id") Long id);
+
+    // Filas [funcionId, estado, dia, cantidad] para reconstruir las estadísticas en un único COUNT agrupado.
+    // El día se calcula en la zona indicada, no en la de la sesión; se agrupa por posición porque cada
+    // aparición de :zona es un parámetro distinto y PostgreSQL no las reconocería como la misma expresión
+    @Query(value = "select r.funcion_id, r.estado, cast(r.created_at at time zone :zona as date), count(*) " +
+                   "from reserva r group by 1, 2, 3", nativeQuery = true)
+    List<Object[]> contarPorFuncionEstadoYDia(@Param("zona") String zona);
 
     @Query("select count(r) from Reserva r where r.estado in :estados")
     long countByEstadoIn(@Param("estados") List<Reserva.Estado> estados);
@@ -0,0 +1,30 @@
+package com.cineflex.repository;
+
+import com.cineflex.model.RespuestaIdempotente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface RespuestaIdempotenteRepository extends JpaRepository<RespuestaIdempotente, String> {
+    @Modifying
+    @Query("update RespuestaIdempotente r set r.estado = com.cineflex.model.RespuestaIdempotente.Estado.COMPLETADA, " +
+           "r.status = :status, r.cuerpo = :cuerpo, r.expiraEn = :expiraEn where r.clave = :clave")
+    int completar(@Param("clave") String clave, @Param("status") int status, @Param("cuerpo") String cuerpo,
+                  @Param("expiraEn") Instant expiraEn);
+
+    @Modifying
+    @Query("delete from RespuestaIdempotente r where r.clave = :clave " +
+           "and r.estado = com.cineflex.model.RespuestaIdempotente.Estado.EN_CURSO")
+    int liberar(@Param("clave") String clave);
+
+    @Modifying
+    @Query("delete from RespuestaIdempotente r where r.clave = :clave and r.expiraEn < :ahora")
+    int deleteVencida(@Param("clave") String clave, @Param("ahora") Instant ahora);
+
+    @Modifying
+    @Query("delete from RespuestaIdempotente r where r.expiraEn < :ahora")
+    int deleteVencidas(@Param("ahora") Instant ahora);
+}
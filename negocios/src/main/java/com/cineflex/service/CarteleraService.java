@@ -0,0 +1,10 @@
+package com.cineflex.service;
+
+import com.cineflex.dto.cartelera.CarteleraResponse;
+
+import java.time.LocalDate;
+
+public interface CarteleraService {
+    CarteleraResponse obtener(LocalDate fecha);
+    void invalidar();
+}
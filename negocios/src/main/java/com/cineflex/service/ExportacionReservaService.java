@@ -0,0 +1,34 @@
+package com.cineflex.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportacionReservaService {
+
+    enum Formato {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Formato(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+
+        public static Formato desde(String valor) {
+            for (Formato f : values()) {
+                if (f.extension.equalsIgnoreCase(valor)) {
+                    return f;
+                }
+            }
+            throw new IllegalArgumentException("Formato de exportación no soportado: " + valor + " (csv o ndjson)");
+        }
+    }
+
+    void exportar(Long funcionId, Formato formato, OutputStream salida) throws IOException;
+}
@@ -1,16 +1,20 @@
 package com.cineflex.service;
 
+import com.cineflex.dto.funcion.FranjaLibre;
 import com.cineflex.dto.funcion.FuncionRequest;
 import com.cineflex.dto.funcion.FuncionResponse;
+import com.cineflex.dto.funcion.ProgramacionRequest;
 import java.time.LocalDate;
 import java.util.List;
 
 public interface FuncionService {
     FuncionResponse crear(FuncionRequest request);
+    List<FuncionResponse> programar(ProgramacionRequest request);
     List<FuncionResponse> listar(Long peliculaId, LocalDate fecha);
     FuncionResponse detalle(Long id);
     FuncionResponse actualizar(Long id, FuncionRequest request);
     void eliminar(Long id);
+    List<FranjaLibre> franjasLibres(String sala, LocalDate fecha, Integer duracionMin);
 }
 
 
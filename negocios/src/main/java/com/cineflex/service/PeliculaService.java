@@ -1,5 +1,6 @@
 package com.cineflex.service;
 
+import com.cineflex.dto.pelicula.PeliculaBusquedaResponse;
 import com.cineflex.dto.pelicula.PeliculaRequest;
 import com.cineflex.dto.pelicula.PeliculaResponse;
 import java.util.List;
@@ -7,6 +8,7 @@ import java.util.List;
 public interface PeliculaService {
     PeliculaResponse crear(PeliculaRequest request);
     List<PeliculaResponse> listar(String genero, String q);
+    PeliculaBusquedaResponse buscar(String genero, String q);
     PeliculaResponse detalle(Long id);
     PeliculaResponse actualizar(Long id, PeliculaRequest request);
     void eliminar(Long id);
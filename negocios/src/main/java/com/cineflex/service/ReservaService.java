@@ -1,5 +1,8 @@
 package com.cineflex.service;
 
+import com.cineflex.dto.reserva.ReservaFiltro;
+import com.cineflex.dto.reserva.ReservaLoteResultado;
+import com.cineflex.dto.reserva.ReservaPagina;
 import com.cineflex.dto.reserva.ReservaRequest;
 import com.cineflex.dto.reserva.ReservaResponse;
 import com.cineflex.dto.reserva.ReservaUpdateRequest;
@@ -8,7 +11,9 @@ import java.util.List;
 
 public interface ReservaService {
     ReservaResponse crear(ReservaRequest request);
+    List<ReservaLoteResultado> crearLote(List<ReservaRequest> requests);
     List<ReservaResponse> listar(Long funcionId);
+    ReservaPagina listarPagina(ReservaFiltro filtro);
     ReservaResponse detalle(Long id);
     ReservaResponse actualizar(Long id, ReservaUpdateRequest request);
     void eliminar(Long id);
@@ -0,0 +1,24 @@
+package com.cineflex.service.admision;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * Límites de admisión por endpoint (cineflex.admision.reglas.&lt;nombre&gt;.*). Cada regla tiene un
+ * cubo global y uno por cliente; una tasa 0 deja ese ámbito sin límite.
+ */
+@ConfigurationProperties("cineflex.admision")
+public record AdmisionProperties(@DefaultValue("true") boolean habilitada,
+                                 @DefaultValue("100000") int maxClientes,
+                                 Map<String, Regla> reglas) {
+
+    public record Regla(String metodo, String ruta,
+                        @DefaultValue("0") double globalPorSegundo, @DefaultValue("1") int globalRafaga,
+                        @DefaultValue("0") double clientePorSegundo, @DefaultValue("1") int clienteRafaga) { }
+
+    public AdmisionProperties {
+        reglas = reglas == null ? Map.of() : reglas;
+    }
+}
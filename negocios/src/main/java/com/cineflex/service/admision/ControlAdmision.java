@@ -0,0 +1,167 @@
+package com.cineflex.service.admision;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decide si una solicitud entra según las reglas de {@link AdmisionProperties}. Se consulta antes
+ * de la autenticación y de los controladores, así que rechazar cuesta un par de CAS y no una
+ * transacción. Primero se aplica el cubo del cliente (un cliente insistente no gasta la capacidad
+ * global) y después el global; si el global rechaza, el token del cliente se devuelve. Con
+ * max-clientes cubos ya creados, los clientes nuevos sólo pasan por el global: compartir un cubo a la
+ * tasa de un cliente dejaría fuera a todos los recién llegados en cuanto unos pocos lo vaciaran.
+ */
+@Component
+public class ControlAdmision {
+
+    public record Decision(boolean admitida, long reintentarEnSegundos, String regla) {
+        static final Decision ADMITIDA = new Decision(true, 0, null);
+    }
+
+    private final class ReglaActiva {
+        final String nombre;
+        final String metodo;
+        final PathPattern patron;
+        final AdmisionProperties.Regla config;
+        final CuboTokens global;
+        final ConcurrentMap<String, CuboTokens> clientes = new ConcurrentHashMap<>();
+        final AtomicLong proximaPurga = new AtomicLong();
+        final Counter admitidas;
+        final Counter rechazadasCliente;
+        final Counter rechazadasGlobal;
+        final Counter desbordadas;
+
+        ReglaActiva(String nombre, AdmisionProperties.Regla config, MeterRegistry registro) {
+            this.nombre = nombre;
+            this.metodo = config.metodo() == null ? null : config.metodo().toUpperCase(Locale.ROOT);
+            this.patron = PathPatternParser.defaultInstance.parse(config.ruta());
+            this.config = config;
+            this.global = config.globalPorSegundo() > 0
+                    ? new CuboTokens(config.globalPorSegundo(), config.globalRafaga(), System.nanoTime()) : null;
+            this.admitidas = contador(registro, nombre, "admitida");
+            this.rechazadasCliente = contador(registro, nombre, "rechazada_cliente");
+            this.rechazadasGlobal = contador(registro, nombre, "rechazada_global");
+            this.desbordadas = Counter.builder("cineflex.admision.desbordadas")
+                    .description("Solicitudes de clientes sin cubo propio por estar lleno el mapa; sólo aplica el global")
+                    .tag("regla", nombre)
+                    .register(registro);
+            Gauge.builder("cineflex.admision.clientes", clientes, ConcurrentMap::size)
+                    .description("Clientes con cubo de tokens activo")
+                    .tag("regla", nombre)
+                    .register(registro);
+        }
+
+        boolean aplica(String metodoSolicitud, PathContainer ruta) {
+            return (metodo == null || metodo.equals(metodoSolicitud)) && patron.matches(ruta);
+        }
+
+        CuboTokens cuboCliente(String cliente, long ahora) {
+            if (config.clientePorSegundo() <= 0) {
+                return null;
+            }
+            CuboTokens cubo = clientes.get(cliente);
+            if (cubo != null) {
+                return cubo;
+            }
+            if (clientes.size() >= maxClientes) {
+                // Se adelanta el barrido (como mucho uno por segundo) y, si sigue lleno, el cliente nuevo
+                // queda sólo bajo el límite global, que sigue acotando lo que entra entre todas las IPs
+                long prevista = proximaPurga.get();
+                if (ahora - prevista >= 0 && proximaPurga.compareAndSet(prevista, ahora + TimeUnit.SECONDS.toNanos(1))) {
+                    purgar(this, ahora);
+                }
+                if (clientes.size() >= maxClientes) {
+                    desbordadas.increment();
+                    return null;
+                }
+            }
+            return clientes.computeIfAbsent(cliente,
+                    c -> new CuboTokens(config.clientePorSegundo(), config.clienteRafaga(), ahora));
+        }
+    }
+
+    private final boolean habilitada;
+    private final int maxClientes;
+    private final List<ReglaActiva> reglas = new ArrayList<>();
+
+    public ControlAdmision(AdmisionProperties propiedades, MeterRegistry registro) {
+        this.habilitada = propiedades.habilitada();
+        this.maxClientes = propiedades.maxClientes();
+        propiedades.reglas().forEach((nombre, regla) -> reglas.add(new ReglaActiva(nombre, regla, registro)));
+    }
+
+    public Decision admitir(String metodo, String ruta, String cliente) {
+        if (!habilitada || reglas.isEmpty()) {
+            return Decision.ADMITIDA;
+        }
+        PathContainer camino = PathContainer.parsePath(ruta);
+        for (ReglaActiva regla : reglas) {
+            if (regla.aplica(metodo, camino)) {
+                return admitir(regla, cliente);
+            }
+        }
+        return Decision.ADMITIDA;
+    }
+
+    private Decision admitir(ReglaActiva regla, String cliente) {
+        long ahora = System.nanoTime();
+        CuboTokens delCliente = regla.cuboCliente(cliente, ahora);
+        if (delCliente != null) {
+            long espera = delCliente.tomar(ahora);
+            if (espera > 0) {
+                regla.rechazadasCliente.increment();
+                return rechazo(regla, espera);
+            }
+        }
+        if (regla.global != null) {
+            long espera = regla.global.tomar(ahora);
+            if (espera > 0) {
+                if (delCliente != null) {
+                    delCliente.devolver(ahora);
+                }
+                regla.rechazadasGlobal.increment();
+                return rechazo(regla, espera);
+            }
+        }
+        regla.admitidas.increment();
+        return Decision.ADMITIDA;
+    }
+
+    @Scheduled(fixedDelayString = "${cineflex.admision.barrido-ms:60000}",
+               initialDelayString = "${cineflex.admision.barrido-ms:60000}")
+    public void purgarClientes() {
+        long ahora = System.nanoTime();
+        reglas.forEach(regla -> purgar(regla, ahora));
+    }
+
+    private void purgar(ReglaActiva regla, long ahora) {
+        regla.clientes.values().removeIf(cubo -> cubo.lleno(ahora));
+    }
+
+    private static Decision rechazo(ReglaActiva regla, long esperaNanos) {
+        long segundos = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(esperaNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        return new Decision(false, segundos, regla.nombre);
+    }
+
+    private static Counter contador(MeterRegistry registro, String regla, String resultado) {
+        return Counter.builder("cineflex.admision.solicitudes")
+                .description("Solicitudes evaluadas por el control de admisión")
+                .tag("regla", regla)
+                .tag("resultado", resultado)
+                .register(registro);
+    }
+}
@@ -0,0 +1,67 @@
+package com.cineflex.service.admision;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cubo de tokens sin bloqueos. Se implementa como GCRA: en vez de guardar tokens y última
+ * recarga, guarda un único instante teórico de llegada (TAT) en un AtomicLong. Admitir una
+ * solicitud adelanta el TAT un intervalo de emisión (1 / tasa) y se rechaza si quedaría más de
+ * {@code rafaga} intervalos por delante del reloj, que equivale a un cubo de capacidad
+ * {@code rafaga} que se recarga a {@code porSegundo} tokens por segundo. Cada decisión es un CAS.
+ */
+public final class CuboTokens {
+
+    private static final long NANOS_POR_SEGUNDO = 1_000_000_000L;
+
+    private final long intervalo;
+    private final long tolerancia;
+    private final AtomicLong tat;
+
+    public CuboTokens(double porSegundo, int rafaga, long ahoraNanos) {
+        if (porSegundo <= 0 || rafaga < 1) {
+            throw new IllegalArgumentException("La tasa debe ser positiva y la ráfaga al menos 1");
+        }
+        this.intervalo = Math.max(1, Math.round(NANOS_POR_SEGUNDO / porSegundo));
+        this.tolerancia = intervalo * rafaga;
+        this.tat = new AtomicLong(ahoraNanos);
+    }
+
+    /**
+     * Toma un token si hay. Devuelve 0 si se admitió o los nanosegundos hasta que habrá uno.
+     */
+    public long tomar(long ahoraNanos) {
+        while (true) {
+            long actual = tat.get();
+            long siguiente = Math.max(actual, ahoraNanos) + intervalo;
+            long permitidoDesde = siguiente - tolerancia;
+            if (ahoraNanos < permitidoDesde) {
+                return permitidoDesde - ahoraNanos;
+            }
+            if (tat.compareAndSet(actual, siguiente)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Devuelve un token tomado que al final no se usó (otro límite rechazó la solicitud).
+     */
+    public void devolver(long ahoraNanos) {
+        while (true) {
+            long actual = tat.get();
+            if (actual <= ahoraNanos) {
+                return;
+            }
+            if (tat.compareAndSet(actual, Math.max(ahoraNanos, actual - intervalo))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Un cubo lleno no guarda información: se puede descartar y volver a crear sin cambiar nada.
+     */
+    public boolean lleno(long ahoraNanos) {
+        return tat.get() <= ahoraNanos;
+    }
+}
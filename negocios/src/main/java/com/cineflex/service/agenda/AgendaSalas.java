@@ -0,0 +1,293 @@
+package com.cineflex.service.agenda;
+
+import com.cineflex.dto.funcion.FranjaLibre;
+import com.cineflex.exception.HorarioOcupadoException;
+import com.cineflex.repository.FuncionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ocupación de cada sala como intervalos [inicio, inicio + duración + limpieza) ordenados por
+ * inicio. Como ninguna sala admite intervalos solapados, el único candidato a chocar por la
+ * izquierda es el que empieza antes, así que comprobar un horario nuevo es una búsqueda O(log n)
+ * en vez de recorrer todas las funciones. Se carga una vez desde la base de datos y después se
+ * mantiene con cada alta, edición o baja de funciones. La carga usa su propia transacción: si la
+ * dispara el primer alta, la del llamador tiene la función nueva pendiente y el auto-flush la
+ * traería como si ya estuviera en la agenda.
+ */
+@Component
+public class AgendaSalas {
+
+    private static final Logger log = LoggerFactory.getLogger(AgendaSalas.class);
+    private static final Comparator<Intervalo> ORDEN = Comparator
+            .comparing(Intervalo::inicio)
+            .thenComparing(Intervalo::funcionId);
+
+    public record Intervalo(Long funcionId, Long peliculaId, String sala, LocalDateTime inicio, LocalDateTime fin) { }
+
+    private final FuncionRepository funcionRepository;
+    private final TransactionTemplate transaccion;
+    private final Duration limpieza;
+    private final int duracionPorDefecto;
+    private final LocalTime apertura;
+    private final LocalTime cierre;
+
+    private final Map<String, TreeSet<Intervalo>> salas = new HashMap<>();
+    private final Map<Long, Intervalo> porFuncion = new HashMap<>();
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    // Intervalo más largo visto: acota hacia atrás la búsqueda si los datos previos ya traían solapes
+    private Duration maximo = Duration.ZERO;
+    private volatile boolean cargado;
+
+    public AgendaSalas(FuncionRepository funcionRepository, PlatformTransactionManager transactionManager,
+                       @Value("${cineflex.funciones.limpieza-minutos:15}") long limpiezaMinutos,
+                       @Value("${cineflex.funciones.duracion-por-defecto-minutos:120}") int duracionPorDefecto,
+                       @Value("${cineflex.salas.apertura:10:00}") String apertura,
+                       @Value("${cineflex.salas.cierre:00:00}") String cierre) {
+        this.funcionRepository = funcionRepository;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transaccion.setReadOnly(true);
+        this.limpieza = Duration.ofMinutes(limpiezaMinutos);
+        this.duracionPorDefecto = duracionPorDefecto;
+        this.apertura = LocalTime.parse(apertura);
+        this.cierre = LocalTime.parse(cierre);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargar() {
+        try {
+            cargar();
+        } catch (RuntimeException e) {
+            log.warn("No se pudo precargar la agenda de salas, se cargará con el primer uso: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ocupa en la agenda el horario de la función, reemplazando el que tuviera antes. Lanza
+     * {@link HorarioOcupadoException} si se solapa con otra función de la misma sala.
+     *
+     * @return el intervalo previo de la función, o {@code null} si no estaba en la agenda
+     */
+    public Intervalo reservar(Long funcionId, Long peliculaId, String sala, LocalDate fecha, LocalTime hora,
+                              Integer duracionMin) {
+        cargar();
+        Intervalo nuevo = intervalo(funcionId, peliculaId, sala, fecha, hora, duracionMin);
+        cerrojo.lock();
+        try {
+            Intervalo choque = solapado(nuevo);
+            if (choque != null) {
+                throw new HorarioOcupadoException("La sala " + sala + " está ocupada de " + choque.inicio()
+                        + " a " + choque.fin() + " por la función " + choque.funcionId());
+            }
+            Intervalo previo = eliminar(funcionId);
+            agregar(nuevo);
+            return previo;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Deshace una reserva: quita el intervalo actual de la función y repone el previo si lo había.
+     */
+    public void restaurar(Long funcionId, Intervalo previo) {
+        cerrojo.lock();
+        try {
+            eliminar(funcionId);
+            if (previo != null) {
+                agregar(previo);
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    public void quitar(Long funcionId) {
+        cerrojo.lock();
+        try {
+            eliminar(funcionId);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Recalcula los intervalos de las funciones de una película cuando cambia su duración. No se
+     * rechazan los solapes que resulten: quedan registrados y se avisa en el log.
+     */
+    public void duracionCambiada(Long peliculaId, Integer duracionMin) {
+        cargar();
+        cerrojo.lock();
+        try {
+            List<Intervalo> afectados = porFuncion.values().stream()
+                    .filter(i -> i.peliculaId().equals(peliculaId))
+                    .toList();
+            for (Intervalo actual : afectados) {
+                eliminar(actual.funcionId());
+                Intervalo nuevo = new Intervalo(actual.funcionId(), peliculaId, actual.sala(), actual.inicio(),
+                        actual.inicio().plus(duracion(duracionMin)));
+                Intervalo choque = solapado(nuevo);
+                if (choque != null) {
+                    log.warn("La función {} se solapa con la función {} en la sala {} tras cambiar la duración de la película {}",
+                            nuevo.funcionId(), choque.funcionId(), nuevo.sala(), peliculaId);
+                }
+                agregar(nuevo);
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Huecos libres de la sala dentro del horario de apertura del día indicado. Con
+     * {@code duracionMin} sólo se devuelven los huecos donde cabe una función de esa duración
+     * más la limpieza.
+     */
+    public List<FranjaLibre> franjasLibres(String sala, LocalDate fecha, Integer duracionMin) {
+        cargar();
+        LocalDateTime desde = fecha.atTime(apertura);
+        // Un cierre igual o anterior a la apertura corresponde al día siguiente (00:00 = medianoche)
+        LocalDateTime hasta = cierre.isAfter(apertura) ? fecha.atTime(cierre) : fecha.plusDays(1).atTime(cierre);
+        Duration minimo = duracionMin == null ? Duration.ZERO : duracion(duracionMin);
+
+        List<FranjaLibre> franjas = new ArrayList<>();
+        cerrojo.lock();
+        try {
+            LocalDateTime cursor = desde;
+            for (Intervalo ocupado : candidatos(clave(sala), desde, hasta)) {
+                if (!ocupado.fin().isAfter(cursor)) {
+                    continue;
+                }
+                if (ocupado.inicio().isAfter(cursor)) {
+                    agregarFranja(franjas, cursor, ocupado.inicio(), minimo);
+                }
+                cursor = ocupado.fin();
+                if (!cursor.isBefore(hasta)) {
+                    break;
+                }
+            }
+            if (cursor.isBefore(hasta)) {
+                agregarFranja(franjas, cursor, hasta, minimo);
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+        return franjas;
+    }
+
+    private static void agregarFranja(List<FranjaLibre> franjas, LocalDateTime inicio, LocalDateTime fin, Duration minimo) {
+        Duration libre = Duration.between(inicio, fin);
+        if (libre.compareTo(minimo) >= 0) {
+            franjas.add(new FranjaLibre(inicio, fin, libre.toMinutes()));
+        }
+    }
+
+    private Intervalo solapado(Intervalo nuevo) {
+        for (Intervalo otro : candidatos(nuevo.sala(), nuevo.inicio(), nuevo.fin())) {
+            if (!otro.funcionId().equals(nuevo.funcionId())
+                    && otro.fin().isAfter(nuevo.inicio()) && otro.inicio().isBefore(nuevo.fin())) {
+                return otro;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Intervalos de la sala que pueden tocar [desde, hasta): los que empiezan antes de {@code hasta}
+     * y no antes de {@code desde} menos el intervalo más largo, en orden de inicio.
+     */
+    private NavigableSet<Intervalo> candidatos(String sala, LocalDateTime desde, LocalDateTime hasta) {
+        TreeSet<Intervalo> intervalos = salas.get(sala);
+        if (intervalos == null) {
+            return new TreeSet<>(ORDEN);
+        }
+        Intervalo inferior = new Intervalo(Long.MIN_VALUE, null, sala, desde.minus(maximo), null);
+        Intervalo superior = new Intervalo(Long.MIN_VALUE, null, sala, hasta, null);
+        return intervalos.subSet(inferior, true, superior, false);
+    }
+
+    private void agregar(Intervalo intervalo) {
+        salas.computeIfAbsent(intervalo.sala(), s -> new TreeSet<>(ORDEN)).add(intervalo);
+        porFuncion.put(intervalo.funcionId(), intervalo);
+        Duration largo = Duration.between(intervalo.inicio(), intervalo.fin());
+        if (largo.compareTo(maximo) > 0) {
+            maximo = largo;
+        }
+    }
+
+    private Intervalo eliminar(Long funcionId) {
+        Intervalo previo = porFuncion.remove(funcionId);
+        if (previo != null) {
+            TreeSet<Intervalo> intervalos = salas.get(previo.sala());
+            intervalos.remove(previo);
+            if (intervalos.isEmpty()) {
+                salas.remove(previo.sala());
+            }
+        }
+        return previo;
+    }
+
+    private Intervalo intervalo(Long funcionId, Long peliculaId, String sala, LocalDate fecha, LocalTime hora,
+                                Integer duracionMin) {
+        LocalDateTime inicio = fecha.atTime(hora);
+        return new Intervalo(funcionId, peliculaId, clave(sala), inicio, inicio.plus(duracion(duracionMin)));
+    }
+
+    private Duration duracion(Integer duracionMin) {
+        int minutos = duracionMin != null && duracionMin > 0 ? duracionMin : duracionPorDefecto;
+        return Duration.ofMinutes(minutos).plus(limpieza);
+    }
+
+    // "Sala 1" y "sala 1 " son la misma sala
+    private static String clave(String sala) {
+        return sala == null ? "" : sala.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void cargar() {
+        if (cargado) {
+            return;
+        }
+        cerrojo.lock();
+        try {
+            if (cargado) {
+                return;
+            }
+            List<Object[]> filas = transaccion.execute(status -> funcionRepository.findHorariosConDuracion());
+            if (filas != null) {
+                for (Object[] fila : filas) {
+                    Intervalo intervalo = intervalo((Long) fila[0], (Long) fila[1], (String) fila[2],
+                            (LocalDate) fila[3], (LocalTime) fila[4], (Integer) fila[5]);
+                    if (!porFuncion.containsKey(intervalo.funcionId())) {
+                        agregar(intervalo);
+                    }
+                }
+            }
+            cargado = true;
+            log.info("Agenda de salas cargada: {} funciones en {} salas", porFuncion.size(), salas.size());
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.cineflex.service.asientos;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publica por Server-Sent Events los cambios de ocupación de cada función. Al suscribirse se
+ * envía la ocupación completa y después sólo deltas (asientos tomados y liberados), agrupando
+ * los cambios de cada ventana de coalescencia en un único evento. Cada conexión tiene una cola
+ * acotada: si un cliente lento la llena, se descartan sus deltas y se le reenvía la ocupación completa.
+ */
+@Component
+public class CanalAsientos implements OyenteAsientos {
+
+    record Snapshot(Long funcionId, List<String> ocupados) { }
+
+    record Delta(Long funcionId, List<String> tomados, List<String> liberados) { }
+
+    // Marcador de cola para reenviar la ocupación completa
+    private static final Object RESINCRONIZAR = new Object();
+    private static final Object LATIDO = new Object();
+
+    private final MapaAsientos mapaAsientos;
+    private final long timeoutMs;
+    private final int capacidadCola;
+    private final ConcurrentMap<Long, GrupoFuncion> grupos = new ConcurrentHashMap<>();
+    private final AtomicLong secuencia = new AtomicLong();
+    private final ScheduledExecutorService programador;
+    private final ExecutorService envios;
+
+    public CanalAsientos(MapaAsientos mapaAsientos,
+                         @Value("${cineflex.asientos.sse.coalescencia-ms:250}") long coalescenciaMs,
+                         @Value("${cineflex.asientos.sse.latido-segundos:15}") long latidoSegundos,
+                         @Value("${cineflex.asientos.sse.timeout-minutos:30}") long timeoutMinutos,
+                         @Value("${cineflex.asientos.sse.capacidad-cola:32}") int capacidadCola,
+                         @Value("${cineflex.asientos.sse.hilos-envio:8}") int hilosEnvio) {
+        this.mapaAsientos = mapaAsientos;
+        this.timeoutMs = TimeUnit.MINUTES.toMillis(timeoutMinutos);
+        this.capacidadCola = capacidadCola;
+        this.programador = Executors.newSingleThreadScheduledExecutor(r -> hilo(r, "asientos-sse-coalescencia"));
+        this.envios = Executors.newFixedThreadPool(hilosEnvio, r -> hilo(r, "asientos-sse-envio"));
+        programador.scheduleWithFixedDelay(this::publicarDeltas, coalescenciaMs, coalescenciaMs, TimeUnit.MILLISECONDS);
+        programador.scheduleWithFixedDelay(this::enviarLatidos, latidoSegundos, latidoSegundos, TimeUnit.SECONDS);
+        mapaAsientos.agregarOyente(this);
+    }
+
+    public SseEmitter suscribir(Long funcionId) {
+        // Carga el mapa (y valida que la función exista) antes de abrir la conexión
+        mapaAsientos.contarOcupados(funcionId);
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Suscriptor suscriptor = registrar(funcionId, emitter);
+        Runnable quitar = () -> quitar(funcionId, suscriptor);
+        emitter.onCompletion(quitar);
+        emitter.onTimeout(quitar);
+        emitter.onError(e -> quitar.run());
+        suscriptor.encolar(RESINCRONIZAR);
+        return emitter;
+    }
+
+    /**
+     * Agrega el suscriptor a su grupo dentro de {@code compute}: así no puede caer en un grupo que
+     * {@link #quitar} acaba de sacar del mapa por quedar vacío y que ya no recibe deltas ni latidos.
+     */
+    Suscriptor registrar(Long funcionId, SseEmitter emitter) {
+        Suscriptor suscriptor = new Suscriptor(funcionId, emitter);
+        grupos.compute(funcionId, (id, grupo) -> {
+            GrupoFuncion destino = grupo != null ? grupo : new GrupoFuncion();
+            destino.suscriptores.add(suscriptor);
+            return destino;
+        });
+        return suscriptor;
+    }
+
+    public int conexionesActivas() {
+        return grupos.values().stream().mapToInt(g -> g.suscriptores.size()).sum();
+    }
+
+    @Override
+    public void asientosCambiados(Long funcionId, Collection<String> tomados, Collection<String> liberados) {
+        GrupoFuncion grupo = grupos.get(funcionId);
+        if (grupo == null || grupo.suscriptores.isEmpty()) {
+            return;
+        }
+        grupo.cerrojo.lock();
+        try {
+            // Gana la última operación sobre cada asiento
+            for (String asiento : tomados) {
+                grupo.liberados.remove(asiento);
+                grupo.tomados.add(asiento);
+            }
+            for (String asiento : liberados) {
+                grupo.tomados.remove(asiento);
+                grupo.liberados.add(asiento);
+            }
+        } finally {
+            grupo.cerrojo.unlock();
+        }
+    }
+
+    private void publicarDeltas() {
+        grupos.forEach((funcionId, grupo) -> {
+            Delta delta;
+            grupo.cerrojo.lock();
+            try {
+                if (grupo.tomados.isEmpty() && grupo.liberados.isEmpty()) {
+                    return;
+                }
+                delta = new Delta(funcionId, new ArrayList<>(grupo.tomados), new ArrayList<>(grupo.liberados));
+                grupo.tomados.clear();
+                grupo.liberados.clear();
+            } finally {
+                grupo.cerrojo.unlock();
+            }
+            grupo.suscriptores.forEach(s -> s.encolar(delta));
+        });
+    }
+
+    private void enviarLatidos() {
+        grupos.values().forEach(g -> g.suscriptores.forEach(s -> s.encolar(LATIDO)));
+    }
+
+    void quitar(Long funcionId, Suscriptor suscriptor) {
+        // El grupo sólo sale del mapa si sigue vacío, atómicamente respecto de registrar
+        grupos.computeIfPresent(funcionId, (id, grupo) -> {
+            grupo.suscriptores.remove(suscriptor);
+            return grupo.suscriptores.isEmpty() ? null : grupo;
+        });
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        programador.shutdownNow();
+        envios.shutdownNow();
+        grupos.values().forEach(g -> g.suscriptores.forEach(s -> s.emitter.complete()));
+    }
+
+    private static Thread hilo(Runnable r, String nombre) {
+        Thread t = new Thread(r, nombre);
+        t.setDaemon(true);
+        return t;
+    }
+
+    private static final class GrupoFuncion {
+        // Cerrojo explícito para no anclar hilos virtuales mientras se acumulan los cambios
+        final ReentrantLock cerrojo = new ReentrantLock();
+        final List<Suscriptor> suscriptores = new CopyOnWriteArrayList<>();
+        final Set<String> tomados = new LinkedHashSet<>();
+        final Set<String> liberados = new LinkedHashSet<>();
+    }
+
+    final class Suscriptor {
+        final Long funcionId;
+        final SseEmitter emitter;
+        final BlockingQueue<Object> cola = new ArrayBlockingQueue<>(capacidadCola);
+        final AtomicBoolean enviando = new AtomicBoolean();
+
+        Suscriptor(Long funcionId, SseEmitter emitter) {
+            this.funcionId = funcionId;
+            this.emitter = emitter;
+        }
+
+        void encolar(Object evento) {
+            if (!cola.offer(evento)) {
+                if (evento == LATIDO) {
+                    return;
+                }
+                // Cliente lento: los deltas pendientes se sustituyen por la ocupación completa
+                cola.clear();
+                cola.offer(RESINCRONIZAR);
+            }
+            programarEnvio();
+        }
+
+        void programarEnvio() {
+            if (enviando.compareAndSet(false, true)) {
+                try {
+                    envios.execute(this::drenar);
+                } catch (RuntimeException e) {
+                    enviando.set(false);
+                }
+            }
+        }
+
+        void drenar() {
+            try {
+                Object evento;
+                while ((evento = cola.poll()) != null) {
+                    enviar(evento);
+                }
+            } catch (IOException | IllegalStateException e) {
+                cola.clear();
+                quitar(funcionId, this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                enviando.set(false);
+            }
+            if (!cola.isEmpty()) {
+                programarEnvio();
+            }
+        }
+
+        private void enviar(Object evento) throws IOException {
+            if (evento == LATIDO) {
+                emitter.send(SseEmitter.event().comment("latido"));
+            } else if (evento == RESINCRONIZAR) {
+                emitter.send(SseEmitter.event()
+                        .name("snapshot")
+                        .id(String.valueOf(secuencia.incrementAndGet()))
+                        .data(new Snapshot(funcionId, mapaAsientos.ocupados(funcionId)), MediaType.APPLICATION_JSON));
+            } else {
+                emitter.send(SseEmitter.event()
+                        .name("delta")
+                        .id(String.valueOf(secuencia.incrementAndGet()))
+                        .data(evento, MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+}
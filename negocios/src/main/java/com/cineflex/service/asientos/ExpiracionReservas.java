@@ -0,0 +1,175 @@
+package com.cineflex.service.asientos;
+
+import com.cineflex.model.Reserva;
+import com.cineflex.repository.ReclamoAsientoRepository;
+import com.cineflex.repository.ReservaRepository;
+import com.cineflex.service.estadisticas.EstadisticasReservas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Vencimiento de las reservas CREADA que no se pagan dentro de la retención configurada
+ * ({@code cineflex.reservas.retencion-minutos}). Las retenciones se siguen en una rueda temporal;
+ * al vencer, las reservas se cancelan por lotes con un único UPDATE masivo y, sólo cuando se
+ * confirma, sus asientos se liberan en el {@link MapaAsientos}.
+ */
+@Component
+public class ExpiracionReservas {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpiracionReservas.class);
+
+    record Retencion(Long reservaId, Long funcionId, Instant createdAt, List<String> asientos) { }
+
+    private final ReservaRepository reservaRepository;
+    private final ReclamoAsientoRepository reclamoAsientoRepository;
+    private final MapaAsientos mapaAsientos;
+    private final EstadisticasReservas estadisticas;
+    private final TransactionTemplate transaccion;
+    private final Duration retencion;
+    private final int tamanoLote;
+    private final RuedaTemporal<Retencion> rueda;
+    // Retenciones vencidas en la rueda cuyo UPDATE todavía no se confirmó
+    private final ConcurrentLinkedQueue<Retencion> pendientes = new ConcurrentLinkedQueue<>();
+
+    public ExpiracionReservas(ReservaRepository reservaRepository,
+                              ReclamoAsientoRepository reclamoAsientoRepository,
+                              MapaAsientos mapaAsientos,
+                              EstadisticasReservas estadisticas,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${cineflex.reservas.retencion-minutos:15}") long retencionMinutos,
+                              @Value("${cineflex.reservas.retencion-barrido-ms:1000}") long tickMs,
+                              @Value("${cineflex.reservas.retencion-lote:500}") int tamanoLote) {
+        this.reservaRepository = reservaRepository;
+        this.reclamoAsientoRepository = reclamoAsientoRepository;
+        this.mapaAsientos = mapaAsientos;
+        this.estadisticas = estadisticas;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.retencion = Duration.ofMinutes(retencionMinutos);
+        this.tamanoLote = tamanoLote;
+        this.rueda = new RuedaTemporal<>(tickMs, 512, System.currentTimeMillis());
+    }
+
+    public boolean activa() {
+        return !retencion.isZero();
+    }
+
+    public boolean vencida(Reserva reserva) {
+        return activa()
+                && reserva.getEstado() == Reserva.Estado.CREADA
+                && !Instant.now().isBefore(reserva.getCreatedAt().plus(retencion));
+    }
+
+    public void registrar(Reserva reserva) {
+        if (!activa()) {
+            return;
+        }
+        Instant vence = reserva.getCreatedAt().plus(retencion);
+        Retencion r = new Retencion(reserva.getId(), reserva.getFuncion().getId(), reserva.getCreatedAt(),
+                List.copyOf(reserva.getAsientos()));
+        rueda.programar(reserva.getId(), vence.toEpochMilli(), r);
+    }
+
+    public void descartar(Long reservaId) {
+        rueda.cancelar(reservaId);
+    }
+
+    /**
+     * Quita la retención de la rueda e indica si quien llama debe liberar los asientos en memoria.
+     * Devuelve false cuando la rueda ya venció la retención, porque entonces el barrido es quien
+     * libera los asientos (o ya lo hizo y podrían pertenecer a otra reserva).
+     */
+    public boolean descartar(Long reservaId, Reserva.Estado estadoAnterior) {
+        boolean programada = rueda.cancelar(reservaId);
+        return programada || estadoAnterior != Reserva.Estado.CREADA || !activa();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarRetenciones() {
+        if (!activa()) {
+            return;
+        }
+        List<Reserva> creadas = transaccion.execute(status -> reservaRepository.findByEstado(Reserva.Estado.CREADA));
+        if (creadas != null) {
+            creadas.forEach(this::registrar);
+            log.info("Retenciones de reservas cargadas: {}", creadas.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cineflex.reservas.retencion-barrido-ms:1000}")
+    public void barrer() {
+        if (!activa()) {
+            return;
+        }
+        pendientes.addAll(rueda.avanzar(System.currentTimeMillis()));
+        List<Retencion> lote = new ArrayList<>(tamanoLote);
+        Retencion r;
+        while ((r = pendientes.poll()) != null) {
+            lote.add(r);
+            if (lote.size() == tamanoLote) {
+                cancelarLote(lote);
+                lote = new ArrayList<>(tamanoLote);
+            }
+        }
+        if (!lote.isEmpty()) {
+            cancelarLote(lote);
+        }
+    }
+
+    private void cancelarLote(List<Retencion> lote) {
+        Map<Long, Retencion> porId = new HashMap<>();
+        lote.forEach(r -> porId.put(r.reservaId(), r));
+        Collection<Long> ids = porId.keySet();
+        try {
+            List<Object[]> filas = transaccion.execute(status -> {
+                int canceladas = reservaRepository.cancelarRetencionesVencidas(ids, Instant.now());
+                reclamoAsientoRepository.deleteByReservasCanceladas(ids);
+                log.debug("Retenciones vencidas canceladas: {}", canceladas);
+                return reservaRepository.findEstadosYVersiones(ids);
+            });
+            // Las que se pagaron justo antes de vencer conservan sus asientos. Las canceladas o borradas
+            // por el usuario después de salir de la rueda también se liberan aquí: él ya no lo hace
+            Set<Long> vigentes = new HashSet<>();
+            Map<Long, Long> versiones = new HashMap<>();
+            if (filas != null) {
+                for (Object[] fila : filas) {
+                    if (fila[1] != Reserva.Estado.CANCELADA) {
+                        vigentes.add((Long) fila[0]);
+                    }
+                    versiones.put((Long) fila[0], (Long) fila[2]);
+                }
+            }
+            porId.forEach((id, r) -> {
+                if (!vigentes.contains(id)) {
+                    mapaAsientos.liberar(r.funcionId(), r.asientos());
+                    estadisticas.transicion(r.funcionId(), id, versiones.get(id), r.createdAt(),
+                            Reserva.Estado.CREADA, Reserva.Estado.CANCELADA);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron cancelar {} retenciones vencidas, se reintentará: {}", lote.size(), e.getMessage());
+            pendientes.addAll(lote);
+        }
+    }
+
+    public int retencionesActivas() {
+        return rueda.tamano();
+    }
+}
@@ -0,0 +1,132 @@
+package com.cineflex.service.asientos;
+
+import com.cineflex.model.DistribucionAsientos;
+import com.cineflex.model.Funcion;
+import com.cineflex.repository.FuncionRepository;
+import com.cineflex.repository.ReservaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mantiene en memoria la ocupación de asientos de cada función. El mapa de una función
+ * se carga de forma perezosa desde la base de datos la primera vez que se consulta y
+ * después se actualiza en sitio con cada cambio confirmado de las reservas. Sólo esa carga
+ * abre una transacción (o se une a la del llamador): las consultas con el mapa ya cargado
+ * no toman conexión.
+ */
+@Component
+public class MapaAsientos {
+
+    private final FuncionRepository funcionRepository;
+    private final ReservaRepository reservaRepository;
+    private final Duration retencion;
+    private final TransactionTemplate transaccion;
+
+    private final ConcurrentMap<Long, OcupacionFuncion> ocupaciones = new ConcurrentHashMap<>();
+    // Contador de cambios por función para descartar cargas que se solapan con una escritura
+    private final ConcurrentMap<Long, AtomicLong> cambios = new ConcurrentHashMap<>();
+    private final List<OyenteAsientos> oyentes = new CopyOnWriteArrayList<>();
+
+    public MapaAsientos(FuncionRepository funcionRepository, ReservaRepository reservaRepository,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${cineflex.reservas.retencion-minutos:15}") long retencionMinutos) {
+        this.funcionRepository = funcionRepository;
+        this.reservaRepository = reservaRepository;
+        this.retencion = Duration.ofMinutes(retencionMinutos);
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccion.setReadOnly(true);
+    }
+
+    public List<String> ocupados(Long funcionId) {
+        return obtener(funcionId).ocupados();
+    }
+
+    public List<String> libres(Long funcionId) {
+        return obtener(funcionId).libres();
+    }
+
+    public int contarOcupados(Long funcionId) {
+        return obtener(funcionId).contarOcupados();
+    }
+
+    public List<String> conflictos(Long funcionId, Collection<String> asientos) {
+        return obtener(funcionId).conflictos(asientos);
+    }
+
+    public void agregarOyente(OyenteAsientos oyente) {
+        oyentes.add(oyente);
+    }
+
+    public void ocupar(Long funcionId, Collection<String> asientos) {
+        registrarCambio(funcionId);
+        OcupacionFuncion ocupacion = ocupaciones.get(funcionId);
+        if (ocupacion != null) {
+            ocupacion.ocupar(asientos);
+        }
+        oyentes.forEach(o -> o.asientosCambiados(funcionId, asientos, List.of()));
+    }
+
+    public void liberar(Long funcionId, Collection<String> asientos) {
+        registrarCambio(funcionId);
+        OcupacionFuncion ocupacion = ocupaciones.get(funcionId);
+        if (ocupacion != null) {
+            ocupacion.liberar(asientos);
+        }
+        oyentes.forEach(o -> o.asientosCambiados(funcionId, List.of(), asientos));
+    }
+
+    public void invalidar(Long funcionId) {
+        registrarCambio(funcionId);
+        ocupaciones.remove(funcionId);
+    }
+
+    private OcupacionFuncion obtener(Long funcionId) {
+        OcupacionFuncion ocupacion = ocupaciones.get(funcionId);
+        if (ocupacion != null) {
+            return ocupacion;
+        }
+        long version = contador(funcionId).get();
+        OcupacionFuncion cargada = transaccion.execute(status -> cargar(funcionId));
+        // Si hubo un cambio mientras se cargaba, no se publica la copia para no perderlo
+        if (contador(funcionId).get() != version) {
+            return cargada;
+        }
+        OcupacionFuncion previa = ocupaciones.putIfAbsent(funcionId, cargada);
+        if (previa != null) {
+            return previa;
+        }
+        if (contador(funcionId).get() != version) {
+            ocupaciones.remove(funcionId, cargada);
+        }
+        return cargada;
+    }
+
+    private OcupacionFuncion cargar(Long funcionId) {
+        Funcion funcion = funcionRepository.findById(funcionId)
+                .orElseThrow(() -> new java.util.NoSuchElementException("Función no encontrada con id: " + funcionId));
+        OcupacionFuncion cargada = new OcupacionFuncion(DistribucionAsientos.capacidad(funcion));
+        // Las reservas CREADA con la retención vencida cuentan como libres aunque aún no se hayan barrido
+        Instant limiteRetencion = retencion.isZero() ? Instant.EPOCH : Instant.now().minus(retencion);
+        reservaRepository.findAsientosOcupadosVigentes(funcionId, limiteRetencion).forEach(cargada::ocupar);
+        return cargada;
+    }
+
+    private void registrarCambio(Long funcionId) {
+        contador(funcionId).incrementAndGet();
+    }
+
+    private AtomicLong contador(Long funcionId) {
+        return cambios.computeIfAbsent(funcionId, id -> new AtomicLong());
+    }
+}
@@ -0,0 +1,125 @@
+package com.cineflex.service.asientos;
+
+import com.cineflex.model.DistribucionAsientos;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Mapa de bits con la ocupación de una función, indexado por ordinal de asiento. Se protege con
+ * un {@link ReentrantLock} en lugar de monitores para no anclar hilos virtuales al portador.
+ */
+final class OcupacionFuncion {
+
+    private final int capacidad;
+    private final long[] palabras;
+    private final ReentrantLock cerrojo = new ReentrantLock();
+
+    OcupacionFuncion(int capacidad) {
+        this.capacidad = capacidad;
+        this.palabras = new long[(capacidad + 63) >>> 6];
+    }
+
+    int getCapacidad() {
+        return capacidad;
+    }
+
+    void ocupar(Collection<String> asientos) {
+        cerrojo.lock();
+        try {
+            for (String asiento : asientos) {
+                int i = DistribucionAsientos.ordinal(asiento, capacidad);
+                if (i >= 0) {
+                    palabras[i >>> 6] |= 1L << i;
+                }
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    void liberar(Collection<String> asientos) {
+        cerrojo.lock();
+        try {
+            for (String asiento : asientos) {
+                int i = DistribucionAsientos.ordinal(asiento, capacidad);
+                if (i >= 0) {
+                    palabras[i >>> 6] &= ~(1L << i);
+                }
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    List<String> conflictos(Collection<String> asientos) {
+        List<String> conflictos = new ArrayList<>();
+        cerrojo.lock();
+        try {
+            for (String asiento : asientos) {
+                int i = DistribucionAsientos.ordinal(asiento, capacidad);
+                if (i >= 0 && (palabras[i >>> 6] & (1L << i)) != 0) {
+                    conflictos.add(asiento);
+                }
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+        return conflictos;
+    }
+
+    int contarOcupados() {
+        int total = 0;
+        cerrojo.lock();
+        try {
+            for (long palabra : palabras) {
+                total += Long.bitCount(palabra);
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+        return total;
+    }
+
+    List<String> ocupados() {
+        return etiquetas(copiar(), capacidad);
+    }
+
+    List<String> libres() {
+        long[] libres = copiar();
+        for (int w = 0; w < libres.length; w++) {
+            libres[w] = ~libres[w];
+        }
+        int resto = capacidad & 63;
+        if (resto != 0) {
+            libres[libres.length - 1] &= (1L << resto) - 1;
+        }
+        return etiquetas(libres, capacidad);
+    }
+
+    private long[] copiar() {
+        cerrojo.lock();
+        try {
+            return palabras.clone();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    private static List<String> etiquetas(long[] palabras, int capacidad) {
+        List<String> resultado = new ArrayList<>();
+        for (int w = 0; w < palabras.length; w++) {
+            long palabra = palabras[w];
+            while (palabra != 0) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(palabra);
+                if (i < capacidad) {
+                    resultado.add(DistribucionAsientos.etiqueta(i));
+                }
+                palabra &= palabra - 1;
+            }
+        }
+        return resultado;
+    }
+}
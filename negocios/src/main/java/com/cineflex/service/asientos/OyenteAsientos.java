@@ -0,0 +1,10 @@
+package com.cineflex.service.asientos;
+
+import java.util.Collection;
+
+/**
+ * Recibe los cambios confirmados en la ocupación de una función.
+ */
+public interface OyenteAsientos {
+    void asientosCambiados(Long funcionId, Collection<String> tomados, Collection<String> liberados);
+}
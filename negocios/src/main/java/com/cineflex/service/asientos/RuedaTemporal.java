@@ -0,0 +1,106 @@
+package com.cineflex.service.asientos;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rueda temporal (hashed timing wheel) para vencimientos. Cada entrada cae en la ranura de
+ * su tick de vencimiento; avanzar la rueda sólo revisa las ranuras de los ticks transcurridos,
+ * así que programar, cancelar y vencer cuestan O(1) amortizado sin importar cuántas haya.
+ * Se protege con un {@link ReentrantLock} para no anclar hilos virtuales al portador.
+ */
+final class RuedaTemporal<T> {
+
+    private record Entrada<T>(long clave, long tick, T valor) { }
+
+    private final long duracionTickMs;
+    private final List<Map<Long, Entrada<T>>> ranuras;
+    private final Map<Long, Entrada<T>> porClave = new HashMap<>();
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private long tickActual;
+
+    RuedaTemporal(long duracionTickMs, int numeroRanuras, long ahoraMs) {
+        this.duracionTickMs = duracionTickMs;
+        this.ranuras = new ArrayList<>(numeroRanuras);
+        for (int i = 0; i < numeroRanuras; i++) {
+            ranuras.add(new HashMap<>());
+        }
+        this.tickActual = ahoraMs / duracionTickMs;
+    }
+
+    void programar(long clave, long venceMs, T valor) {
+        cerrojo.lock();
+        try {
+            cancelar(clave);
+            // Lo que ya venció cae en el siguiente tick
+            long tick = Math.max(tickActual + 1, Math.floorDiv(venceMs + duracionTickMs - 1, duracionTickMs));
+            Entrada<T> entrada = new Entrada<>(clave, tick, valor);
+            ranuras.get(ranura(tick)).put(clave, entrada);
+            porClave.put(clave, entrada);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    boolean cancelar(long clave) {
+        cerrojo.lock();
+        try {
+            Entrada<T> entrada = porClave.remove(clave);
+            if (entrada == null) {
+                return false;
+            }
+            ranuras.get(ranura(entrada.tick())).remove(clave);
+            return true;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    int tamano() {
+        cerrojo.lock();
+        try {
+            return porClave.size();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Avanza la rueda hasta el instante indicado y devuelve las entradas vencidas.
+     */
+    List<T> avanzar(long ahoraMs) {
+        long objetivo = ahoraMs / duracionTickMs;
+        List<T> vencidas = new ArrayList<>();
+        cerrojo.lock();
+        try {
+            if (objetivo <= tickActual) {
+                return vencidas;
+            }
+            // Tras una pausa más larga que una vuelta basta con recorrer cada ranura una vez
+            long desde = Math.max(tickActual + 1, objetivo - ranuras.size() + 1);
+            for (long tick = desde; tick <= objetivo; tick++) {
+                Iterator<Entrada<T>> it = ranuras.get(ranura(tick)).values().iterator();
+                while (it.hasNext()) {
+                    Entrada<T> entrada = it.next();
+                    if (entrada.tick() <= objetivo) {
+                        it.remove();
+                        porClave.remove(entrada.clave());
+                        vencidas.add(entrada.valor());
+                    }
+                }
+            }
+            tickActual = objetivo;
+        } finally {
+            cerrojo.unlock();
+        }
+        return vencidas;
+    }
+
+    private int ranura(long tick) {
+        return (int) Math.floorMod(tick, (long) ranuras.size());
+    }
+}
@@ -0,0 +1,218 @@
+package com.cineflex.service.busqueda;
+
+import com.cineflex.dto.pelicula.PeliculaResponse;
+import com.cineflex.mapper.PeliculaMapper;
+import com.cineflex.repository.PeliculaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria del catálogo de películas sobre título, género y sinopsis.
+ * Los términos se guardan en minúsculas y sin tildes, ordenados, de modo que cada palabra de la
+ * búsqueda se resuelve como prefijo con un rango del mapa en vez de recorrer todo el catálogo.
+ * Se carga una vez desde la base de datos y después se actualiza con cada alta, edición o baja.
+ */
+@Component
+public class IndicePeliculas {
+
+    // Peso de cada campo en la puntuación; una coincidencia exacta de la palabra vale el doble que un prefijo
+    private static final int PESO_TITULO = 3;
+    private static final int PESO_GENERO = 2;
+    private static final int PESO_SINOPSIS = 1;
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    public record Resultado(List<PeliculaResponse> peliculas, Map<String, Long> generos) { }
+
+    private record Documento(PeliculaResponse pelicula, String generoNormalizado, Map<String, Integer> terminos) { }
+
+    private final PeliculaRepository peliculaRepository;
+    private final TransactionTemplate transaccion;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Serializa la carga inicial; un cerrojo explícito no ancla el hilo virtual durante la consulta
+    private final ReentrantLock carga = new ReentrantLock();
+    private final TreeMap<Long, Documento> documentos = new TreeMap<>();
+    private final TreeMap<String, Map<Long, Integer>> terminos = new TreeMap<>();
+    private volatile boolean cargado;
+
+    public IndicePeliculas(PeliculaRepository peliculaRepository, PlatformTransactionManager transactionManager) {
+        this.peliculaRepository = peliculaRepository;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccion.setReadOnly(true);
+    }
+
+    public void indexar(PeliculaResponse pelicula) {
+        cargar();
+        lock.writeLock().lock();
+        try {
+            agregar(pelicula);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void quitar(Long id) {
+        cargar();
+        lock.writeLock().lock();
+        try {
+            eliminar(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca las películas que contienen todas las palabras de {@code q} (como prefijo de alguna
+     * palabra de sus campos), ordenadas por puntuación. Los conteos por género se calculan sobre
+     * las coincidencias de {@code q} antes de aplicar el filtro de género.
+     */
+    public Resultado buscar(String q, String genero) {
+        cargar();
+        List<String> consulta = tokens(q);
+        String generoBuscado = genero == null || genero.isBlank() ? null : normalizar(genero.trim());
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> puntajes = consulta.isEmpty() ? null : puntuar(consulta);
+            Iterable<Long> candidatos = puntajes == null ? documentos.keySet() : puntajes.keySet();
+
+            Map<String, Long> conteos = new HashMap<>();
+            Map<String, String> nombres = new HashMap<>();
+            List<Documento> coincidencias = new ArrayList<>();
+            for (Long id : candidatos) {
+                Documento doc = documentos.get(id);
+                if (doc.generoNormalizado() != null) {
+                    conteos.merge(doc.generoNormalizado(), 1L, Long::sum);
+                    nombres.putIfAbsent(doc.generoNormalizado(), doc.pelicula().getGenero().trim());
+                }
+                if (generoBuscado == null || generoBuscado.equals(doc.generoNormalizado())) {
+                    coincidencias.add(doc);
+                }
+            }
+            if (puntajes != null) {
+                coincidencias.sort(Comparator
+                        .comparing((Documento d) -> puntajes.get(d.pelicula().getId()), Comparator.reverseOrder())
+                        .thenComparing(d -> normalizar(d.pelicula().getTitulo())));
+            }
+
+            Map<String, Long> generos = new LinkedHashMap<>();
+            conteos.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .forEach(e -> generos.put(nombres.get(e.getKey()), e.getValue()));
+            return new Resultado(coincidencias.stream().map(Documento::pelicula).toList(), generos);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Integer> puntuar(List<String> consulta) {
+        Map<Long, Integer> acumulado = null;
+        for (String token : consulta) {
+            Map<Long, Integer> delToken = new HashMap<>();
+            // Términos que empiezan por el token: rango [token, token + máximo carácter)
+            terminos.subMap(token, true, token + Character.MAX_VALUE, false).forEach((termino, postings) -> {
+                int factor = termino.equals(token) ? 2 : 1;
+                postings.forEach((id, peso) -> delToken.merge(id, peso * factor, Math::max));
+            });
+            if (acumulado == null) {
+                acumulado = delToken;
+            } else {
+                Map<Long, Integer> previo = acumulado;
+                previo.keySet().retainAll(delToken.keySet());
+                previo.replaceAll((id, puntaje) -> puntaje + delToken.get(id));
+            }
+            if (acumulado.isEmpty()) {
+                break;
+            }
+        }
+        return acumulado;
+    }
+
+    private void cargar() {
+        if (cargado) {
+            return;
+        }
+        carga.lock();
+        try {
+            if (cargado) {
+                return;
+            }
+            List<PeliculaResponse> peliculas = transaccion.execute(status ->
+                    peliculaRepository.findAll().stream().map(PeliculaMapper::toResponse).toList());
+            lock.writeLock().lock();
+            try {
+                if (peliculas != null) {
+                    peliculas.forEach(this::agregar);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            cargado = true;
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    private void agregar(PeliculaResponse pelicula) {
+        eliminar(pelicula.getId());
+        Map<String, Integer> pesos = new HashMap<>();
+        tokens(pelicula.getTitulo()).forEach(t -> pesos.merge(t, PESO_TITULO, Math::max));
+        tokens(pelicula.getGenero()).forEach(t -> pesos.merge(t, PESO_GENERO, Math::max));
+        tokens(pelicula.getSinopsis()).forEach(t -> pesos.merge(t, PESO_SINOPSIS, Math::max));
+        String genero = pelicula.getGenero() == null || pelicula.getGenero().isBlank()
+                ? null : normalizar(pelicula.getGenero().trim());
+        documentos.put(pelicula.getId(), new Documento(pelicula, genero, pesos));
+        pesos.forEach((termino, peso) -> terminos.computeIfAbsent(termino, t -> new HashMap<>()).put(pelicula.getId(), peso));
+    }
+
+    private void eliminar(Long id) {
+        Documento previo = documentos.remove(id);
+        if (previo == null) {
+            return;
+        }
+        for (String termino : previo.terminos().keySet()) {
+            Map<Long, Integer> postings = terminos.get(termino);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.isEmpty()) {
+                    terminos.remove(termino);
+                }
+            }
+        }
+    }
+
+    static String normalizar(String texto) {
+        String sinTildes = DIACRITICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinTildes.toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> tokens(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        Set<String> unicos = new HashSet<>();
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARADORES.split(normalizar(texto))) {
+            if (!token.isEmpty() && unicos.add(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,165 @@
+package com.cineflex.service.concurrencia;
+
+import com.cineflex.repository.FuncionRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializa las escrituras de reservas de una misma función según el modo configurado en
+ * {@code cineflex.reservas.concurrencia}. El bloqueo se toma dentro de la transacción y se
+ * libera al terminar (commit o rollback), de modo que la siguiente escritura ya ve los datos
+ * confirmados. Funciones distintas usan franjas distintas y avanzan en paralelo.
+ */
+@Component
+public class BloqueoFunciones {
+
+    private static final int MAX_FUNCIONES_CON_METRICAS = 10_000;
+
+    private final ModoConcurrencia modo;
+    private final FuncionRepository funcionRepository;
+    private final ReentrantLock[] franjas;
+    private final ConcurrentMap<Long, ContencionFuncion> contenciones = new ConcurrentHashMap<>();
+    private final Timer tiempoEspera;
+
+    public BloqueoFunciones(@Value("${cineflex.reservas.concurrencia:RECLAMOS}") ModoConcurrencia modo,
+                            @Value("${cineflex.reservas.franjas-bloqueo:64}") int numeroFranjas,
+                            FuncionRepository funcionRepository,
+                            MeterRegistry meterRegistry) {
+        this.modo = modo;
+        this.funcionRepository = funcionRepository;
+        // Potencia de dos para poder elegir la franja con una máscara
+        int tamano = Integer.highestOneBit(Math.max(1, numeroFranjas - 1)) << 1;
+        this.franjas = new ReentrantLock[tamano];
+        for (int i = 0; i < tamano; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+        this.tiempoEspera = Timer.builder("cineflex.reservas.bloqueo.espera")
+                .description("Tiempo de espera para escribir reservas de una función")
+                .tag("modo", modo.name())
+                .register(meterRegistry);
+        Gauge.builder("cineflex.reservas.bloqueo.en_espera", contenciones,
+                        c -> c.values().stream().mapToInt(x -> x.enEspera.get()).sum())
+                .description("Escrituras de reservas esperando el bloqueo de su función")
+                .register(meterRegistry);
+    }
+
+    public boolean activo() {
+        return modo != ModoConcurrencia.RECLAMOS;
+    }
+
+    public ModoConcurrencia getModo() {
+        return modo;
+    }
+
+    /**
+     * Toma el bloqueo de la función hasta el final de la transacción actual.
+     */
+    public void bloquear(Long funcionId) {
+        if (!activo()) {
+            return;
+        }
+        if (modo == ModoConcurrencia.LOCAL) {
+            esperar(List.of(funcionId), () -> bloquearFranja(franja(funcionId)));
+        } else {
+            esperar(List.of(funcionId), () -> funcionRepository.findByIdParaActualizar(funcionId));
+        }
+    }
+
+    /**
+     * Bloquea varias funciones sin riesgo de interbloqueo: en modo pesimista las filas se toman
+     * en orden ascendente de id; en modo local el orden que importa es el de las franjas, porque
+     * dos ids pueden caer en franjas invertidas respecto de su orden, así que se toma cada franja
+     * una sola vez y en orden ascendente de índice.
+     */
+    public void bloquear(List<Long> funcionIds) {
+        if (!activo()) {
+            return;
+        }
+        if (modo != ModoConcurrencia.LOCAL) {
+            funcionIds.stream().distinct().sorted().forEach(this::bloquear);
+            return;
+        }
+        Map<Integer, List<Long>> porFranja = new TreeMap<>();
+        for (Long funcionId : new LinkedHashSet<>(funcionIds)) {
+            porFranja.computeIfAbsent(franja(funcionId), f -> new ArrayList<>()).add(funcionId);
+        }
+        porFranja.forEach((indice, ids) -> esperar(ids, () -> bloquearFranja(indice)));
+    }
+
+    private void esperar(List<Long> funcionIds, Runnable adquirir) {
+        List<ContencionFuncion> afectadas = funcionIds.stream().map(this::contencion).toList();
+        afectadas.forEach(ContencionFuncion::entrar);
+        long inicio = System.nanoTime();
+        try {
+            adquirir.run();
+        } finally {
+            long espera = System.nanoTime() - inicio;
+            afectadas.forEach(c -> c.salir(espera));
+            tiempoEspera.record(espera, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void bloquearFranja(int indice) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("El bloqueo por función requiere una transacción activa");
+        }
+        ReentrantLock lock = franjas[indice];
+        lock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+
+    private int franja(Long funcionId) {
+        long h = funcionId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (franjas.length - 1);
+    }
+
+    private ContencionFuncion contencion(Long funcionId) {
+        if (contenciones.size() >= MAX_FUNCIONES_CON_METRICAS && !contenciones.containsKey(funcionId)) {
+            contenciones.values().removeIf(c -> c.enEspera.get() == 0);
+        }
+        return contenciones.computeIfAbsent(funcionId, id -> new ContencionFuncion());
+    }
+
+    /**
+     * Funciones con más tiempo total de espera, para detectar los estrenos con más demanda.
+     */
+    public List<Map<String, Object>> funcionesMasDisputadas(int limite) {
+        return contenciones.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<Long, ContencionFuncion> e) -> e.getValue().nanosEspera.sum()).reversed())
+                .limit(limite)
+                .map(e -> {
+                    ContencionFuncion c = e.getValue();
+                    Map<String, Object> fila = new LinkedHashMap<>();
+                    fila.put("funcionId", e.getKey());
+                    fila.put("enEspera", c.enEspera.get());
+                    fila.put("maxEnEspera", c.maxEnEspera.get());
+                    fila.put("adquisiciones", c.adquisiciones.sum());
+                    fila.put("esperaTotalMs", TimeUnit.NANOSECONDS.toMillis(c.nanosEspera.sum()));
+                    fila.put("esperaMaximaMs", TimeUnit.NANOSECONDS.toMillis(c.maxNanosEspera.get()));
+                    return fila;
+                })
+                .toList();
+    }
+}
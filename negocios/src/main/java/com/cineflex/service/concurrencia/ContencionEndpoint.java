@@ -0,0 +1,31 @@
+package com.cineflex.service.concurrencia;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Endpoint de actuator ({@code /actuator/contencion}) con la contención de escrituras por función.
+ */
+@Component
+@Endpoint(id = "contencion")
+public class ContencionEndpoint {
+
+    private final BloqueoFunciones bloqueoFunciones;
+
+    public ContencionEndpoint(BloqueoFunciones bloqueoFunciones) {
+        this.bloqueoFunciones = bloqueoFunciones;
+    }
+
+    @ReadOperation
+    public Map<String, Object> contencion(@Nullable Integer limite) {
+        Map<String, Object> respuesta = new LinkedHashMap<>();
+        respuesta.put("modo", bloqueoFunciones.getModo().name());
+        respuesta.put("funciones", bloqueoFunciones.funcionesMasDisputadas(limite != null ? limite : 20));
+        return respuesta;
+    }
+}
@@ -0,0 +1,28 @@
+package com.cineflex.service.concurrencia;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de espera acumuladas para una función.
+ */
+final class ContencionFuncion {
+
+    final AtomicInteger enEspera = new AtomicInteger();
+    final LongAccumulator maxEnEspera = new LongAccumulator(Math::max, 0);
+    final LongAdder adquisiciones = new LongAdder();
+    final LongAdder nanosEspera = new LongAdder();
+    final LongAccumulator maxNanosEspera = new LongAccumulator(Math::max, 0);
+
+    void entrar() {
+        maxEnEspera.accumulate(enEspera.incrementAndGet());
+    }
+
+    void salir(long nanos) {
+        enEspera.decrementAndGet();
+        adquisiciones.increment();
+        nanosEspera.add(nanos);
+        maxNanosEspera.accumulate(nanos);
+    }
+}
@@ -0,0 +1,13 @@
+package com.cineflex.service.concurrencia;
+
+/**
+ * Estrategia para serializar las escrituras de reservas de una misma función.
+ */
+public enum ModoConcurrencia {
+    /** Sin bloqueo: la clave única de reclamo_asiento resuelve los conflictos. */
+    RECLAMOS,
+    /** Bloqueo en memoria por franjas; sólo válido con un único nodo. */
+    LOCAL,
+    /** SELECT ... FOR UPDATE sobre la fila de la función; válido con varios nodos. */
+    PESIMISTA
+}
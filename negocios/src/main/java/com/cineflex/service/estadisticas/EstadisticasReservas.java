@@ -0,0 +1,253 @@
+package com.cineflex.service.estadisticas;
+
+import com.cineflex.model.Reserva;
+import com.cineflex.repository.ReservaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Contadores en memoria de reservas por estado, por función y por día de creación. Se
+ * actualizan después de cada commit que cambia el estado de una reserva y se reconstruyen desde
+ * la base de datos al arrancar y de forma periódica, lo que además corrige cualquier desvío por
+ * escrituras de otros nodos. El día se calcula siempre en {@code cineflex.estadisticas.zona}, tanto
+ * en la reconstrucción (un único COUNT agrupado) como en los cambios en vivo. Los cambios que llegan
+ * durante una reconstrucción se encolan con el id y la versión que dejaron en la reserva; antes de
+ * publicar los contadores nuevos se cotejan con el mismo snapshot que leyó el conteo y sólo se
+ * repiten los que éste no vio, así un cambio confirmado justo antes de la consulta no cuenta dos veces.
+ */
+@Component
+public class EstadisticasReservas {
+
+    private static final Logger log = LoggerFactory.getLogger(EstadisticasReservas.class);
+    private static final Reserva.Estado[] ESTADOS = Reserva.Estado.values();
+    private static final int IDS_POR_CONSULTA = 1000;
+
+    // Cambio ya aplicado en vivo; version es la de la reserva tras el cambio, o null si la borró
+    private record Cambio(Long reservaId, Long version, boolean creacion, Consumer<Contadores> efecto) { }
+
+    private static final class Contadores {
+        final AtomicLongArray total = new AtomicLongArray(ESTADOS.length);
+        final ConcurrentMap<Long, AtomicLongArray> porFuncion = new ConcurrentHashMap<>();
+        final ConcurrentMap<LocalDate, AtomicLongArray> porDia = new ConcurrentHashMap<>();
+
+        void sumar(Long funcionId, LocalDate dia, Reserva.Estado estado, long delta) {
+            int i = estado.ordinal();
+            total.addAndGet(i, delta);
+            porFuncion.computeIfAbsent(funcionId, id -> new AtomicLongArray(ESTADOS.length)).addAndGet(i, delta);
+            porDia.computeIfAbsent(dia, d -> new AtomicLongArray(ESTADOS.length)).addAndGet(i, delta);
+        }
+    }
+
+    private final ReservaRepository reservaRepository;
+    private final TransactionTemplate transaccion;
+    private final ZoneId zona;
+    // Lectura: aplicar un cambio (concurrentes entre sí). Escritura: empezar o publicar una reconstrucción
+    private final ReentrantReadWriteLock cambios = new ReentrantReadWriteLock();
+    private final ReentrantLock reconstruccion = new ReentrantLock();
+    private volatile Contadores contadores = new Contadores();
+    private Queue<Cambio> pendientes;
+
+    public EstadisticasReservas(ReservaRepository reservaRepository, PlatformTransactionManager transactionManager,
+                                @Value("${cineflex.estadisticas.zona:America/Bogota}") String zona) {
+        this.reservaRepository = reservaRepository;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccion.setReadOnly(true);
+        // El conteo y el cotejo de la cola tienen que leer el mismo snapshot
+        this.transaccion.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.zona = ZoneId.of(zona);
+    }
+
+    /**
+     * @param version versión de la reserva recién insertada
+     */
+    public void creada(Long funcionId, Long reservaId, Long version, Instant createdAt) {
+        LocalDate dia = dia(createdAt);
+        aplicar(new Cambio(reservaId, version, true, c -> c.sumar(funcionId, dia, Reserva.Estado.CREADA, 1)));
+    }
+
+    /**
+     * @param version versión de la reserva tras el cambio de estado, o {@code null} si ya no existe
+     */
+    public void transicion(Long funcionId, Long reservaId, Long version, Instant createdAt,
+                           Reserva.Estado desde, Reserva.Estado hacia) {
+        LocalDate dia = dia(createdAt);
+        aplicar(new Cambio(reservaId, version, false, c -> {
+            c.sumar(funcionId, dia, desde, -1);
+            c.sumar(funcionId, dia, hacia, 1);
+        }));
+    }
+
+    public void eliminada(Long funcionId, Long reservaId, Instant createdAt, Reserva.Estado estado) {
+        LocalDate dia = dia(createdAt);
+        aplicar(new Cambio(reservaId, null, false, c -> c.sumar(funcionId, dia, estado, -1)));
+    }
+
+    private void aplicar(Cambio cambio) {
+        cambios.readLock().lock();
+        try {
+            cambio.efecto().accept(contadores);
+            if (pendientes != null) {
+                pendientes.add(cambio);
+            }
+        } finally {
+            cambios.readLock().unlock();
+        }
+    }
+
+    public Map<Reserva.Estado, Long> porEstado() {
+        return aMapa(contadores.total);
+    }
+
+    public long activas() {
+        AtomicLongArray total = contadores.total;
+        return total.get(Reserva.Estado.CREADA.ordinal()) + total.get(Reserva.Estado.PAGADA.ordinal());
+    }
+
+    public Map<Reserva.Estado, Long> deFuncion(Long funcionId) {
+        return aMapa(contadores.porFuncion.get(funcionId));
+    }
+
+    public Map<Reserva.Estado, Long> delDia(LocalDate dia) {
+        return aMapa(contadores.porDia.get(dia));
+    }
+
+    /**
+     * Conteos por día de creación dentro del rango (inclusive), sólo de los días con reservas.
+     */
+    public Map<LocalDate, Map<Reserva.Estado, Long>> porDia(LocalDate desde, LocalDate hasta) {
+        Map<LocalDate, Map<Reserva.Estado, Long>> resultado = new TreeMap<>();
+        contadores.porDia.forEach((dia, conteos) -> {
+            if ((desde == null || !dia.isBefore(desde)) && (hasta == null || !dia.isAfter(hasta))) {
+                resultado.put(dia, aMapa(conteos));
+            }
+        });
+        return resultado;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${cineflex.estadisticas.reconciliacion-ms:3600000}",
+               initialDelayString = "${cineflex.estadisticas.reconciliacion-ms:3600000}")
+    public void reconciliar() {
+        if (!reconstruccion.tryLock()) {
+            return;
+        }
+        try {
+            // Se empieza a encolar antes de que la consulta tome su snapshot: todo lo confirmado
+            // después de ese snapshot queda en la cola
+            cambios.writeLock().lock();
+            try {
+                pendientes = new ConcurrentLinkedQueue<>();
+            } finally {
+                cambios.writeLock().unlock();
+            }
+            try {
+                Contadores nuevos = transaccion.execute(status -> reconstruir());
+                log.debug("Estadísticas de reservas reconciliadas: {}", aMapa(nuevos.total));
+            } finally {
+                cambios.writeLock().lock();
+                try {
+                    pendientes = null;
+                } finally {
+                    cambios.writeLock().unlock();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron reconciliar las estadísticas de reservas: {}", e.getMessage());
+        } finally {
+            reconstruccion.unlock();
+        }
+    }
+
+    private Contadores reconstruir() {
+        Contadores nuevos = new Contadores();
+        for (Object[] fila : reservaRepository.contarPorFuncionEstadoYDia(zona.getId())) {
+            nuevos.sumar(((Number) fila[0]).longValue(), fecha(fila[2]), Reserva.Estado.valueOf(fila[1].toString()),
+                    ((Number) fila[3]).longValue());
+        }
+        // Con el cerrojo de escritura no entran más cambios mientras se coteja la cola y se publica
+        cambios.writeLock().lock();
+        try {
+            List<Cambio> encolados = List.copyOf(pendientes);
+            Map<Long, Long> versiones = versionesEnSnapshot(encolados);
+            Set<Long> creadas = new HashSet<>();
+            encolados.stream().filter(Cambio::creacion).forEach(c -> creadas.add(c.reservaId()));
+            for (Cambio cambio : encolados) {
+                if (!visto(cambio, versiones, creadas)) {
+                    cambio.efecto().accept(nuevos);
+                }
+            }
+            contadores = nuevos;
+            pendientes = null;
+        } finally {
+            cambios.writeLock().unlock();
+        }
+        return nuevos;
+    }
+
+    private Map<Long, Long> versionesEnSnapshot(List<Cambio> encolados) {
+        List<Long> ids = encolados.stream().map(Cambio::reservaId).distinct().toList();
+        Map<Long, Long> versiones = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += IDS_POR_CONSULTA) {
+            List<Long> tramo = ids.subList(i, Math.min(ids.size(), i + IDS_POR_CONSULTA));
+            for (Object[] fila : reservaRepository.findEstadosYVersiones(tramo)) {
+                versiones.put((Long) fila[0], (Long) fila[2]);
+            }
+        }
+        return versiones;
+    }
+
+    /**
+     * Si el conteo ya incluye el cambio. Sin fila en el snapshot, la reserva o se creó después (y su
+     * creación está en la cola, así que se repiten todos sus cambios) o ya se había borrado antes.
+     */
+    private static boolean visto(Cambio cambio, Map<Long, Long> versiones, Set<Long> creadas) {
+        Long enSnapshot = versiones.get(cambio.reservaId());
+        if (enSnapshot == null) {
+            return !creadas.contains(cambio.reservaId());
+        }
+        return cambio.creacion() || cambio.version() != null && cambio.version() <= enSnapshot;
+    }
+
+    private static LocalDate fecha(Object valor) {
+        return valor instanceof java.sql.Date fecha ? fecha.toLocalDate() : (LocalDate) valor;
+    }
+
+    private LocalDate dia(Instant instante) {
+        return LocalDate.ofInstant(instante, zona);
+    }
+
+    private static Map<Reserva.Estado, Long> aMapa(AtomicLongArray conteos) {
+        Map<Reserva.Estado, Long> mapa = new EnumMap<>(Reserva.Estado.class);
+        for (Reserva.Estado estado : ESTADOS) {
+            mapa.put(estado, conteos != null ? conteos.get(estado.ordinal()) : 0L);
+        }
+        return mapa;
+    }
+}
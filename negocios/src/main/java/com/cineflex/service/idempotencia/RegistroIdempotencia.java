@@ -0,0 +1,290 @@
+package com.cineflex.service.idempotencia;
+
+import com.cineflex.exception.SolicitudEnCursoException;
+import com.cineflex.model.RespuestaIdempotente;
+import com.cineflex.repository.RespuestaIdempotenteRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Respuestas de operaciones con cabecera Idempotency-Key. Un reintento con la misma clave recibe
+ * la respuesta guardada sin volver a ejecutar la operación; si llega mientras la primera todavía se
+ * ejecuta, espera a que termine en vez de competir con ella. Las respuestas recientes se guardan en
+ * un LRU acotado y todas en la tabla respuesta_idempotente hasta que vencen, que además reparte la
+ * clave entre nodos: el que inserta la fila EN_CURSO es el único que ejecuta. La clave vale dentro
+ * del ámbito de quien la envía (usuario o IP), así que dos clientes que elijan la misma no se cruzan.
+ * Las respuestas 5xx y las excepciones no se guardan, así que ese reintento vuelve a ejecutarse.
+ */
+@Component
+public class RegistroIdempotencia {
+
+    public static final String CABECERA = "Idempotency-Key";
+    public static final String CABECERA_REPETIDA = "Idempotent-Replayed";
+    private static final int LONGITUD_MAXIMA_CLAVE = 200;
+    private static final long INTERVALO_SONDEO_MS = 100;
+    private static final Logger log = LoggerFactory.getLogger(RegistroIdempotencia.class);
+
+    private record Respuesta(String huella, int status, String cuerpo, Instant expiraEn) { }
+
+    private final RespuestaIdempotenteRepository repository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaccion;
+    private final Duration ttl;
+    private final Duration ttlEnCurso;
+    private final long esperaMs;
+    private final Map<String, Respuesta> recientes;
+    // LinkedHashMap en orden de acceso: hasta get la modifica, así que toda lectura va bajo el cerrojo
+    private final ReentrantLock cerrojoRecientes = new ReentrantLock();
+    private final ConcurrentMap<String, CompletableFuture<Respuesta>> enCurso = new ConcurrentHashMap<>();
+
+    public RegistroIdempotencia(RespuestaIdempotenteRepository repository, ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${cineflex.idempotencia.ttl-horas:24}") long ttlHoras,
+                                @Value("${cineflex.idempotencia.en-curso-segundos:60}") long enCursoSegundos,
+                                @Value("${cineflex.idempotencia.espera-ms:10000}") long esperaMs,
+                                @Value("${cineflex.idempotencia.memoria-max:10000}") int memoriaMaxima) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        // Cada paso se confirma por separado de la operación: la reclamación tiene que verse desde otros nodos
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttl = Duration.ofHours(ttlHoras);
+        this.ttlEnCurso = Duration.ofSeconds(enCursoSegundos);
+        this.esperaMs = esperaMs;
+        this.recientes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Respuesta> eldest) {
+                return size() > memoriaMaxima;
+            }
+        };
+    }
+
+    /**
+     * Ejecuta {@code accion} una sola vez por {@code operacion}, {@code ambito} y {@code clave}.
+     * {@code ambito} identifica al cliente (usuario autenticado o IP) y {@code solicitud} los datos
+     * enviados: reutilizar la clave con otros datos es un error.
+     */
+    public <T> ResponseEntity<T> ejecutar(String operacion, String ambito, String clave, Object solicitud,
+                                          Class<T> tipo, Supplier<ResponseEntity<T>> accion) {
+        if (clave.isBlank() || clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            throw new IllegalArgumentException("La cabecera " + CABECERA + " debe tener entre 1 y "
+                    + LONGITUD_MAXIMA_CLAVE + " caracteres");
+        }
+        String id = operacion + " " + ambito + " " + clave;
+        String huella = huella(operacion, solicitud);
+        while (true) {
+            Respuesta guardada = reciente(id);
+            if (guardada != null) {
+                return reproducir(guardada, huella, tipo);
+            }
+            CompletableFuture<Respuesta> propia = new CompletableFuture<>();
+            CompletableFuture<Respuesta> otra = enCurso.putIfAbsent(id, propia);
+            if (otra != null) {
+                Respuesta primera = esperar(otra);
+                if (primera != null) {
+                    return reproducir(primera, huella, tipo);
+                }
+                // La primera ejecución falló sin respuesta guardable: se vuelve a intentar
+                continue;
+            }
+            try {
+                return ejecutarPropia(id, huella, tipo, accion, propia);
+            } finally {
+                enCurso.remove(id, propia);
+                propia.complete(null);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cineflex.idempotencia.barrido-ms:600000}",
+               initialDelayString = "${cineflex.idempotencia.barrido-ms:600000}")
+    public void purgar() {
+        try {
+            Integer borradas = transaccion.execute(status -> repository.deleteVencidas(Instant.now()));
+            if (borradas != null && borradas > 0) {
+                log.debug("Respuestas idempotentes vencidas eliminadas: {}", borradas);
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron purgar las respuestas idempotentes vencidas: {}", e.getMessage());
+        }
+    }
+
+    private <T> ResponseEntity<T> ejecutarPropia(String id, String huella, Class<T> tipo,
+                                                 Supplier<ResponseEntity<T>> accion,
+                                                 CompletableFuture<Respuesta> propia) {
+        if (!reclamar(id, huella)) {
+            // Otro nodo la está ejecutando o ya la completó
+            Respuesta remota = esperarEnBaseDeDatos(id);
+            recordar(id, remota);
+            propia.complete(remota);
+            return reproducir(remota, huella, tipo);
+        }
+        ResponseEntity<T> resultado;
+        try {
+            resultado = accion.get();
+        } catch (RuntimeException e) {
+            liberar(id);
+            throw e;
+        }
+        String cuerpo = json(resultado.getBody());
+        if (resultado.getStatusCode().is5xxServerError()) {
+            liberar(id);
+            return resultado;
+        }
+        Respuesta respuesta = new Respuesta(huella, resultado.getStatusCode().value(), cuerpo, Instant.now().plus(ttl));
+        try {
+            transaccion.executeWithoutResult(status -> repository.completar(id, respuesta.status(),
+                    respuesta.cuerpo(), respuesta.expiraEn()));
+        } catch (DataAccessException e) {
+            // La operación ya se hizo: la respuesta queda al menos en memoria
+            log.warn("No se pudo guardar la respuesta idempotente {}: {}", id, e.getMessage());
+        }
+        recordar(id, respuesta);
+        propia.complete(respuesta);
+        return resultado;
+    }
+
+    /**
+     * Inserta la fila EN_CURSO. Devuelve false si ya existe una vigente (de otro nodo o completada).
+     */
+    private boolean reclamar(String id, String huella) {
+        Instant ahora = Instant.now();
+        try {
+            transaccion.executeWithoutResult(status -> {
+                repository.deleteVencida(id, ahora);
+                repository.saveAndFlush(new RespuestaIdempotente(id, huella, ahora.plus(ttlEnCurso)));
+            });
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private void liberar(String id) {
+        try {
+            transaccion.executeWithoutResult(status -> repository.liberar(id));
+        } catch (DataAccessException e) {
+            // La fila EN_CURSO vence sola tras en-curso-segundos
+            log.warn("No se pudo liberar la clave idempotente {}: {}", id, e.getMessage());
+        }
+    }
+
+    private Respuesta esperarEnBaseDeDatos(String id) {
+        long limite = System.currentTimeMillis() + esperaMs;
+        while (true) {
+            RespuestaIdempotente fila = transaccion.execute(status -> repository.findById(id).orElse(null));
+            if (fila != null && fila.getEstado() == RespuestaIdempotente.Estado.COMPLETADA) {
+                return new Respuesta(fila.getHuella(), fila.getStatus(), fila.getCuerpo(), fila.getExpiraEn());
+            }
+            if (fila == null || System.currentTimeMillis() >= limite) {
+                // Sin fila la otra ejecución falló: el cliente puede reintentar con la misma clave
+                throw new SolicitudEnCursoException("La solicitud con esta " + CABECERA + " todavía se está procesando");
+            }
+            try {
+                Thread.sleep(INTERVALO_SONDEO_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SolicitudEnCursoException("La solicitud con esta " + CABECERA + " todavía se está procesando");
+            }
+        }
+    }
+
+    private Respuesta esperar(CompletableFuture<Respuesta> otra) {
+        try {
+            return otra.get(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new SolicitudEnCursoException("La solicitud con esta " + CABECERA + " todavía se está procesando");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SolicitudEnCursoException("La solicitud con esta " + CABECERA + " todavía se está procesando");
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private <T> ResponseEntity<T> reproducir(Respuesta respuesta, String huella, Class<T> tipo) {
+        if (!respuesta.huella().equals(huella)) {
+            throw new IllegalArgumentException("La " + CABECERA + " ya se usó con una solicitud distinta");
+        }
+        try {
+            T cuerpo = respuesta.cuerpo() == null ? null : objectMapper.readValue(respuesta.cuerpo(), tipo);
+            return ResponseEntity.status(respuesta.status()).header(CABECERA_REPETIDA, "true").body(cuerpo);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Respuesta idempotente guardada ilegible", e);
+        }
+    }
+
+    private Respuesta reciente(String id) {
+        cerrojoRecientes.lock();
+        try {
+            Respuesta respuesta = recientes.get(id);
+            if (respuesta != null && respuesta.expiraEn().isBefore(Instant.now())) {
+                recientes.remove(id);
+                return null;
+            }
+            return respuesta;
+        } finally {
+            cerrojoRecientes.unlock();
+        }
+    }
+
+    private void recordar(String id, Respuesta respuesta) {
+        cerrojoRecientes.lock();
+        try {
+            recientes.put(id, respuesta);
+        } finally {
+            cerrojoRecientes.unlock();
+        }
+    }
+
+    private String json(Object cuerpo) {
+        if (cuerpo == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(cuerpo);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta idempotente", e);
+        }
+    }
+
+    private String huella(String operacion, Object solicitud) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(operacion.getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) 0);
+            sha.update(objectMapper.writeValueAsBytes(solicitud));
+            return HexFormat.of().formatHex(sha.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo calcular la huella de la solicitud", e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.cineflex.service.impl;
+
+import com.cineflex.dto.cartelera.CarteleraFuncion;
+import com.cineflex.dto.cartelera.CarteleraPelicula;
+import com.cineflex.dto.cartelera.CarteleraResponse;
+import com.cineflex.model.DistribucionAsientos;
+import com.cineflex.model.Funcion;
+import com.cineflex.model.Pelicula;
+import com.cineflex.repository.FuncionRepository;
+import com.cineflex.repository.ReservaRepository;
+import com.cineflex.service.CarteleraService;
+import com.cineflex.service.asientos.MapaAsientos;
+import com.cineflex.service.asientos.OyenteAsientos;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cartelera de un día: películas con sus funciones y los asientos libres de cada una. Se arma
+ * con dos consultas (funciones con su película y asientos ocupados agrupados por función) y se
+ * guarda como una foto inmutable por fecha. Cualquier cambio de ocupación descarta las fotos que
+ * incluyen esa función; los cambios de películas o funciones las descartan todas. Sólo armar
+ * una foto abre transacción: servir una ya guardada no toma conexión.
+ */
+@Service
+public class CarteleraServiceImpl implements CarteleraService, OyenteAsientos {
+
+    private static final int MAX_FECHAS = 31;
+
+    private record Foto(CarteleraResponse cartelera, Set<Long> funciones) { }
+
+    private final FuncionRepository funcionRepository;
+    private final ReservaRepository reservaRepository;
+    private final Duration retencion;
+    private final TransactionTemplate transaccion;
+    private final ConcurrentMap<LocalDate, Foto> fotos = new ConcurrentHashMap<>();
+    // Versión de los datos; una foto armada mientras cambió la versión no se guarda
+    private final AtomicLong version = new AtomicLong();
+
+    public CarteleraServiceImpl(FuncionRepository funcionRepository, ReservaRepository reservaRepository,
+                                MapaAsientos mapaAsientos, PlatformTransactionManager transactionManager,
+                                @Value("${cineflex.reservas.retencion-minutos:15}") long retencionMinutos) {
+        this.funcionRepository = funcionRepository;
+        this.reservaRepository = reservaRepository;
+        this.retencion = Duration.ofMinutes(retencionMinutos);
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccion.setReadOnly(true);
+        mapaAsientos.agregarOyente(this);
+    }
+
+    @Override
+    public CarteleraResponse obtener(LocalDate fecha) {
+        Foto foto = fotos.get(fecha);
+        if (foto != null) {
+            return foto.cartelera();
+        }
+        long versionInicial = version.get();
+        Foto nueva = transaccion.execute(status -> armar(fecha));
+        if (version.get() == versionInicial) {
+            if (fotos.size() >= MAX_FECHAS) {
+                fotos.clear();
+            }
+            fotos.put(fecha, nueva);
+            // Un cambio que llegó justo antes del put no debe quedar tapado por esta foto
+            if (version.get() != versionInicial) {
+                fotos.remove(fecha, nueva);
+            }
+        }
+        return nueva.cartelera();
+    }
+
+    @Override
+    public void invalidar() {
+        version.incrementAndGet();
+        fotos.clear();
+    }
+
+    @Override
+    public void asientosCambiados(Long funcionId, Collection<String> tomados, Collection<String> liberados) {
+        version.incrementAndGet();
+        fotos.entrySet().removeIf(e -> e.getValue().funciones().contains(funcionId));
+    }
+
+    private Foto armar(LocalDate fecha) {
+        List<Funcion> funciones = funcionRepository.findByFechaConPelicula(fecha);
+        Instant limiteRetencion = retencion.isZero() ? Instant.EPOCH : Instant.now().minus(retencion);
+        Map<Long, Long> ocupados = new HashMap<>();
+        for (Object[] fila : reservaRepository.contarAsientosOcupadosPorFecha(fecha, limiteRetencion)) {
+            ocupados.put((Long) fila[0], (Long) fila[1]);
+        }
+
+        Map<Long, List<CarteleraFuncion>> porPelicula = new LinkedHashMap<>();
+        Map<Long, Pelicula> peliculas = new HashMap<>();
+        for (Funcion f : funciones) {
+            int capacidad = DistribucionAsientos.capacidad(f);
+            int libres = (int) Math.max(0, capacidad - ocupados.getOrDefault(f.getId(), 0L));
+            peliculas.putIfAbsent(f.getPelicula().getId(), f.getPelicula());
+            porPelicula.computeIfAbsent(f.getPelicula().getId(), id -> new ArrayList<>())
+                    .add(new CarteleraFuncion(f.getId(), f.getHora().toString(), f.getSala(), f.getPrecio(), capacidad, libres));
+        }
+
+        List<CarteleraPelicula> resultado = new ArrayList<>();
+        porPelicula.forEach((peliculaId, delDia) -> {
+            Pelicula p = peliculas.get(peliculaId);
+            resultado.add(new CarteleraPelicula(p.getId(), p.getTitulo(), p.getGenero(), p.getDuracionMin(),
+                    p.getClasificacion(), p.getImagenUrl(), delDia));
+        });
+        Set<Long> ids = Set.copyOf(funciones.stream().map(Funcion::getId).toList());
+        return new Foto(new CarteleraResponse(fecha, resultado), ids);
+    }
+}
@@ -0,0 +1,37 @@
+package com.cineflex.service.impl;
+
+import com.cineflex.model.Reserva;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Cursor opaco del listado de reservas: la posición (createdAt, id) de la última reserva
+ * entregada, codificada en Base64 URL para que el cliente sólo tenga que devolverla.
+ */
+record CursorReservas(Instant createdAt, Long id) {
+
+    static CursorReservas de(Reserva reserva) {
+        return new CursorReservas(reserva.getCreatedAt(), reserva.getId());
+    }
+
+    String codificar() {
+        String valor = createdAt.getEpochSecond() + ":" + createdAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static CursorReservas decodificar(String cursor) {
+        try {
+            String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (partes.length != 3) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            Instant createdAt = Instant.ofEpochSecond(Long.parseLong(partes[0]), Long.parseLong(partes[1]));
+            return new CursorReservas(createdAt, Long.parseLong(partes[2]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
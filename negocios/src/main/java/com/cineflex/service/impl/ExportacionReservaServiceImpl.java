@@ -0,0 +1,162 @@
+package com.cineflex.service.impl;
+
+import com.cineflex.model.Funcion;
+import com.cineflex.model.Reserva;
+import com.cineflex.repository.ReservaRepository;
+import com.cineflex.service.ExportacionReservaService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exporta las reservas fila por fila desde un cursor de base de datos: cada reserva se
+ * escribe y se separa del contexto de persistencia antes de leer la siguiente, así que la
+ * memoria usada no depende de cuántas reservas haya.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExportacionReservaServiceImpl implements ExportacionReservaService {
+
+    // Filas entre cada flush para que el cliente reciba la descarga de forma progresiva
+    private static final int FILAS_POR_FLUSH = 500;
+    private static final String ENCABEZADO_CSV =
+            "id,nombreCliente,funcionId,pelicula,fecha,hora,sala,asientos,cantidad,estado,precioTotal,createdAt,paidAt,cancelledAt";
+
+    private final ReservaRepository reservaRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public ExportacionReservaServiceImpl(ReservaRepository reservaRepository, EntityManager entityManager,
+                                         ObjectMapper objectMapper) {
+        this.reservaRepository = reservaRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void exportar(Long funcionId, Formato formato, OutputStream salida) throws IOException {
+        try (Stream<Reserva> reservas = reservaRepository.streamParaExportar(funcionId)) {
+            if (formato == Formato.CSV) {
+                escribirCsv(reservas.iterator(), salida);
+            } else {
+                escribirNdjson(reservas.iterator(), salida);
+            }
+        }
+    }
+
+    private void escribirCsv(Iterator<Reserva> reservas, OutputStream salida) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        out.write(ENCABEZADO_CSV);
+        out.write('\n');
+        int filas = 0;
+        while (reservas.hasNext()) {
+            Reserva r = reservas.next();
+            Funcion f = r.getFuncion();
+            out.write(String.valueOf(r.getId()));
+            campoTexto(out, r.getNombreCliente());
+            campo(out, f.getId());
+            campoTexto(out, f.getPelicula().getTitulo());
+            campo(out, f.getFecha());
+            campo(out, f.getHora());
+            campoTexto(out, f.getSala());
+            campoTexto(out, String.join(" ", r.getAsientos()));
+            campo(out, r.getCantidad());
+            campo(out, r.getEstado());
+            campo(out, r.getPrecioTotal());
+            campo(out, r.getCreatedAt());
+            campo(out, r.getPaidAt());
+            campo(out, r.getCancelledAt());
+            out.write('\n');
+            entityManager.detach(r);
+            if (++filas % FILAS_POR_FLUSH == 0) {
+                out.flush();
+            }
+        }
+        out.flush();
+    }
+
+    // Texto libre: si empieza como una fórmula se antepone un apóstrofo para que la hoja de
+    // cálculo lo muestre como texto en vez de evaluarlo (inyección de fórmulas en CSV)
+    private static void campoTexto(Writer out, String valor) throws IOException {
+        if (valor != null && !valor.isEmpty() && "=+-@\t\r".indexOf(valor.charAt(0)) >= 0) {
+            valor = "'" + valor;
+        }
+        campo(out, valor);
+    }
+
+    private static void campo(Writer out, Object valor) throws IOException {
+        out.write(',');
+        if (valor == null) {
+            return;
+        }
+        String texto = valor.toString();
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            out.write(texto);
+            return;
+        }
+        out.write('"');
+        out.write(texto.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private void escribirNdjson(Iterator<Reserva> reservas, OutputStream salida) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(salida, JsonEncoding.UTF8);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        int filas = 0;
+        while (reservas.hasNext()) {
+            Reserva r = reservas.next();
+            Funcion f = r.getFuncion();
+            json.writeStartObject();
+            json.writeNumberField("id", r.getId());
+            json.writeStringField("nombreCliente", r.getNombreCliente());
+            json.writeNumberField("funcionId", f.getId());
+            json.writeStringField("pelicula", f.getPelicula().getTitulo());
+            json.writeStringField("fecha", texto(f.getFecha()));
+            json.writeStringField("hora", texto(f.getHora()));
+            json.writeStringField("sala", f.getSala());
+            json.writeArrayFieldStart("asientos");
+            for (String asiento : r.getAsientos()) {
+                json.writeString(asiento);
+            }
+            json.writeEndArray();
+            if (r.getCantidad() != null) {
+                json.writeNumberField("cantidad", r.getCantidad());
+            } else {
+                json.writeNullField("cantidad");
+            }
+            json.writeStringField("estado", r.getEstado().name());
+            json.writeNumberField("precioTotal", r.getPrecioTotal());
+            json.writeStringField("createdAt", texto(r.getCreatedAt()));
+            json.writeStringField("paidAt", texto(r.getPaidAt()));
+            json.writeStringField("cancelledAt", texto(r.getCancelledAt()));
+            json.writeEndObject();
+            entityManager.detach(r);
+            if (++filas % FILAS_POR_FLUSH == 0) {
+                json.flush();
+            }
+        }
+        // La última línea también termina en salto de línea
+        if (filas > 0) {
+            json.writeRaw('\n');
+        }
+        json.flush();
+    }
+
+    private static String texto(Object valor) {
+        return valor != null ? valor.toString() : null;
+    }
+}
@@ -1,18 +1,35 @@
 package com.cineflex.service.impl;
 
+import com.cineflex.dto.funcion.FranjaLibre;
 import com.cineflex.dto.funcion.FuncionRequest;
 import com.cineflex.dto.funcion.FuncionResponse;
+import com.cineflex.dto.funcion.ProgramacionRequest;
 import com.cineflex.mapper.FuncionMapper;
 import com.cineflex.model.Funcion;
 import com.cineflex.model.Pelicula;
 import com.cineflex.repository.FuncionRepository;
 import com.cineflex.repository.PeliculaRepository;
+import com.cineflex.service.CarteleraService;
 import com.cineflex.service.FuncionService;
+import com.cineflex.service.agenda.AgendaSalas;
+import com.cineflex.service.asientos.MapaAsientos;
+import com.cineflex.service.versiones.VersionesRecursos;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,22 +38,120 @@ public class FuncionServiceImpl implements FuncionService {
 
     private final FuncionRepository funcionRepository;
     private final PeliculaRepository peliculaRepository;
+    private final MapaAsientos mapaAsientos;
+    private final CarteleraService carteleraService;
+    private final VersionesRecursos versiones;
+    private final AgendaSalas agendaSalas;
+    private final int maximoProgramacion;
 
-    public FuncionServiceImpl(FuncionRepository funcionRepository, PeliculaRepository peliculaRepository) {
+    public FuncionServiceImpl(FuncionRepository funcionRepository, PeliculaRepository peliculaRepository,
+                              MapaAsientos mapaAsientos, CarteleraService carteleraService,
+                              VersionesRecursos versiones, AgendaSalas agendaSalas,
+                              @Value("${cineflex.funciones.programacion-max:500}") int maximoProgramacion) {
         this.funcionRepository = funcionRepository;
         this.peliculaRepository = peliculaRepository;
+        this.mapaAsientos = mapaAsientos;
+        this.carteleraService = carteleraService;
+        this.versiones = versiones;
+        this.agendaSalas = agendaSalas;
+        this.maximoProgramacion = maximoProgramacion;
     }
 
     @Override
+    @CacheEvict(cacheNames = "funcionesListado", allEntries = true)
     public FuncionResponse crear(FuncionRequest request) {
         Pelicula p = peliculaRepository.findById(request.getPeliculaId())
                 .orElseThrow(() -> new java.util.NoSuchElementException("Película no encontrada con id: " + request.getPeliculaId()));
-        Funcion f = FuncionMapper.toEntity(request, p);
-        return FuncionMapper.toResponse(funcionRepository.save(f));
+        Funcion f = funcionRepository.save(FuncionMapper.toEntity(request, p));
+        // Se ocupa la agenda antes del commit para que dos altas simultáneas en la misma sala no pasen ambas
+        AgendaSalas.Intervalo previo = agendaSalas.reservar(f.getId(), p.getId(), f.getSala(), f.getFecha(), f.getHora(), p.getDuracionMin());
+        Transacciones.alRevertir(() -> agendaSalas.restaurar(f.getId(), previo));
+        FuncionResponse creada = FuncionMapper.toResponse(f);
+        Transacciones.despuesDelCommit(() -> {
+            carteleraService.invalidar();
+            versiones.funcionCambiada(creada.getId());
+        });
+        return creada;
+    }
+
+    /**
+     * Crea todas las funciones de la combinación días × salas × horas del rango, o ninguna si alguna
+     * choca con la agenda. Los ids salen de la secuencia en bloque, así que los INSERT se envían en
+     * lotes de hibernate.jdbc.batch_size al hacer flush.
+     */
+    @Override
+    @CacheEvict(cacheNames = "funcionesListado", allEntries = true)
+    public List<FuncionResponse> programar(ProgramacionRequest request) {
+        Pelicula p = peliculaRepository.findById(request.getPeliculaId())
+                .orElseThrow(() -> new java.util.NoSuchElementException("Película no encontrada con id: " + request.getPeliculaId()));
+        LocalDate desde = LocalDate.parse(request.getDesde());
+        LocalDate hasta = LocalDate.parse(request.getHasta());
+        if (hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("La fecha hasta no puede ser anterior a desde");
+        }
+        List<LocalTime> horas = request.getHoras().stream().map(LocalTime::parse).distinct().sorted().toList();
+        List<String> salas = request.getSalas().stream().map(String::trim).distinct().toList();
+        Set<DayOfWeek> dias = diasSemana(request.getDias());
+
+        List<LocalDate> fechas = desde.datesUntil(hasta.plusDays(1))
+                .filter(d -> dias.contains(d.getDayOfWeek()))
+                .toList();
+        long cantidad = (long) fechas.size() * salas.size() * horas.size();
+        if (cantidad > maximoProgramacion) {
+            throw new IllegalArgumentException("La programación genera " + cantidad
+                    + " funciones; el máximo por solicitud es " + maximoProgramacion);
+        }
+
+        List<Funcion> nuevas = new ArrayList<>((int) cantidad);
+        for (LocalDate fecha : fechas) {
+            for (String sala : salas) {
+                for (LocalTime hora : horas) {
+                    Funcion f = new Funcion();
+                    f.setPelicula(p);
+                    f.setFecha(fecha);
+                    f.setHora(hora);
+                    f.setSala(sala);
+                    f.setPrecio(request.getPrecio());
+                    nuevas.add(f);
+                }
+            }
+        }
+        // persist sólo asigna el id del bloque de la secuencia; los INSERT salen juntos en el flush
+        funcionRepository.saveAll(nuevas);
+
+        List<Long> reservadas = new ArrayList<>(nuevas.size());
+        Transacciones.alRevertir(() -> reservadas.forEach(agendaSalas::quitar));
+        for (Funcion f : nuevas) {
+            agendaSalas.reservar(f.getId(), p.getId(), f.getSala(), f.getFecha(), f.getHora(), p.getDuracionMin());
+            reservadas.add(f.getId());
+        }
+
+        List<FuncionResponse> creadas = nuevas.stream().map(FuncionMapper::toResponse).toList();
+        Transacciones.despuesDelCommit(() -> {
+            carteleraService.invalidar();
+            creadas.forEach(c -> versiones.funcionCambiada(c.getId()));
+        });
+        return creadas;
+    }
+
+    private static Set<DayOfWeek> diasSemana(List<String> dias) {
+        if (dias == null || dias.isEmpty()) {
+            return EnumSet.allOf(DayOfWeek.class);
+        }
+        Set<DayOfWeek> resultado = EnumSet.noneOf(DayOfWeek.class);
+        for (String dia : dias) {
+            try {
+                resultado.add(DayOfWeek.valueOf(dia.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new IllegalArgumentException("Día de la semana inválido: " + dia);
+            }
+        }
+        return resultado;
     }
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable("funcionesListado")
     public List<FuncionResponse> listar(Long peliculaId, LocalDate fecha) {
         return funcionRepository.findByFilters(peliculaId, fecha).stream()
                 .map(FuncionMapper::toResponse)
@@ -45,6 +160,7 @@ public class FuncionServiceImpl implements FuncionService {
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = "funciones", key = "#id")
     public FuncionResponse detalle(Long id) {
         return funcionRepository.findById(id)
                 .map(FuncionMapper::toResponse)
@@ -52,22 +168,49 @@ public class FuncionServiceImpl implements FuncionService {
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "funciones", key = "#id"),
+            @CacheEvict(cacheNames = "funcionesListado", allEntries = true)
+    })
     public FuncionResponse actualizar(Long id, FuncionRequest request) {
         Funcion f = funcionRepository.findById(id)
                 .orElseThrow(() -> new java.util.NoSuchElementException("Función no encontrada con id: " + id));
         Pelicula p = peliculaRepository.findById(request.getPeliculaId())
                 .orElseThrow(() -> new java.util.NoSuchElementException("Película no encontrada con id: " + request.getPeliculaId()));
+        AgendaSalas.Intervalo previo = agendaSalas.reservar(id, p.getId(), request.getSala(),
+                LocalDate.parse(request.getFecha()), LocalTime.parse(request.getHora()), p.getDuracionMin());
+        Transacciones.alRevertir(() -> agendaSalas.restaurar(id, previo));
         FuncionMapper.updateEntity(f, request, p);
-        return FuncionMapper.toResponse(funcionRepository.save(f));
+        FuncionResponse actualizada = FuncionMapper.toResponse(funcionRepository.save(f));
+        Transacciones.despuesDelCommit(() -> {
+            carteleraService.invalidar();
+            versiones.funcionCambiada(id);
+        });
+        return actualizada;
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "funciones", key = "#id"),
+            @CacheEvict(cacheNames = "funcionesListado", allEntries = true)
+    })
     public void eliminar(Long id) {
         if (!funcionRepository.existsById(id)) {
             throw new java.util.NoSuchElementException("Función no encontrada con id: " + id);
         }
         funcionRepository.deleteById(id);
+        Transacciones.despuesDelCommit(() -> {
+            mapaAsientos.invalidar(id);
+            agendaSalas.quitar(id);
+            carteleraService.invalidar();
+            versiones.funcionCambiada(id);
+        });
     }
-}
-
 
+    // Se responde desde la agenda en memoria: sin transacción no se toma una conexión por consulta
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<FranjaLibre> franjasLibres(String sala, LocalDate fecha, Integer duracionMin) {
+        return agendaSalas.franjasLibres(sala, fecha, duracionMin);
+    }
+}
@@ -1,45 +1,73 @@
 package com.cineflex.service.impl;
 
+import com.cineflex.dto.pelicula.PeliculaBusquedaResponse;
 import com.cineflex.dto.pelicula.PeliculaRequest;
 import com.cineflex.dto.pelicula.PeliculaResponse;
 import com.cineflex.mapper.PeliculaMapper;
 import com.cineflex.model.Pelicula;
 import com.cineflex.repository.PeliculaRepository;
+import com.cineflex.service.CarteleraService;
 import com.cineflex.service.PeliculaService;
+import com.cineflex.service.agenda.AgendaSalas;
+import com.cineflex.service.busqueda.IndicePeliculas;
+import com.cineflex.service.versiones.VersionesRecursos;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class PeliculaServiceImpl implements PeliculaService {
 
     private final PeliculaRepository peliculaRepository;
+    private final IndicePeliculas indicePeliculas;
+    private final CarteleraService carteleraService;
+    private final VersionesRecursos versiones;
+    private final AgendaSalas agendaSalas;
 
-    public PeliculaServiceImpl(PeliculaRepository peliculaRepository) {
+    public PeliculaServiceImpl(PeliculaRepository peliculaRepository, IndicePeliculas indicePeliculas,
+                               CarteleraService carteleraService, VersionesRecursos versiones,
+                               AgendaSalas agendaSalas) {
         this.peliculaRepository = peliculaRepository;
+        this.indicePeliculas = indicePeliculas;
+        this.carteleraService = carteleraService;
+        this.versiones = versiones;
+        this.agendaSalas = agendaSalas;
     }
 
     @Override
     public PeliculaResponse crear(PeliculaRequest request) {
         Pelicula p = PeliculaMapper.toEntity(request);
-        return PeliculaMapper.toResponse(peliculaRepository.save(p));
+        PeliculaResponse creada = PeliculaMapper.toResponse(peliculaRepository.save(p));
+        Transacciones.despuesDelCommit(() -> {
+            indicePeliculas.indexar(creada);
+            versiones.peliculaCambiada(creada.getId());
+        });
+        return creada;
     }
 
+    // Se responde desde el índice en memoria, que abre su propia transacción sólo para la carga inicial
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<PeliculaResponse> listar(String genero, String q) {
-        return peliculaRepository.findAll().stream()
-                .filter(p -> genero == null || genero.isBlank() || genero.equalsIgnoreCase(p.getGenero()))
-                .filter(p -> q == null || q.isBlank() || p.getTitulo().toLowerCase().contains(q.toLowerCase()))
-                .map(PeliculaMapper::toResponse)
-                .collect(Collectors.toList());
+        return indicePeliculas.buscar(q, genero).peliculas();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public PeliculaBusquedaResponse buscar(String genero, String q) {
+        IndicePeliculas.Resultado resultado = indicePeliculas.buscar(q, genero);
+        return new PeliculaBusquedaResponse(resultado.peliculas(), resultado.generos());
     }
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = "peliculas", key = "#id")
     public PeliculaResponse detalle(Long id) {
         Pelicula p = peliculaRepository.findById(id)
                 .orElseThrow(() -> new java.util.NoSuchElementException("Película no encontrada con id: " + id));
@@ -47,19 +75,43 @@ public class PeliculaServiceImpl implements PeliculaService {
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "peliculas", key = "#id"),
+            // Las funciones en caché referencian la película y la caché no se indexa por película
+            @CacheEvict(cacheNames = "funciones", allEntries = true),
+            @CacheEvict(cacheNames = "funcionesListado", allEntries = true)
+    })
     public PeliculaResponse actualizar(Long id, PeliculaRequest request) {
         Pelicula p = peliculaRepository.findById(id)
                 .orElseThrow(() -> new java.util.NoSuchElementException("Película no encontrada con id: " + id));
         PeliculaMapper.updateEntity(p, request);
-        return PeliculaMapper.toResponse(peliculaRepository.save(p));
+        PeliculaResponse actualizada = PeliculaMapper.toResponse(peliculaRepository.save(p));
+        Transacciones.despuesDelCommit(() -> {
+            indicePeliculas.indexar(actualizada);
+            agendaSalas.duracionCambiada(id, actualizada.getDuracionMin());
+            carteleraService.invalidar();
+            versiones.peliculaCambiada(id);
+        });
+        return actualizada;
     }
 
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "peliculas", key = "#id"),
+            // Las funciones en caché referencian la película y la caché no se indexa por película
+            @CacheEvict(cacheNames = "funciones", allEntries = true),
+            @CacheEvict(cacheNames = "funcionesListado", allEntries = true)
+    })
     public void eliminar(Long id) {
         if (!peliculaRepository.existsById(id)) {
             throw new java.util.NoSuchElementException("Película no encontrada con id: " + id);
         }
         peliculaRepository.deleteById(id);
+        Transacciones.despuesDelCommit(() -> {
+            indicePeliculas.quitar(id);
+            carteleraService.invalidar();
+            versiones.peliculaCambiada(id);
+        });
     }
 }
 
@@ -1,5 +1,8 @@
 package com.cineflex.service.impl;
 
+import com.cineflex.dto.reserva.ReservaFiltro;
+import com.cineflex.dto.reserva.ReservaLoteResultado;
+import com.cineflex.dto.reserva.ReservaPagina;
 import com.cineflex.dto.reserva.ReservaRequest;
 import com.cineflex.dto.reserva.ReservaResponse;
 import com.cineflex.dto.reserva.ReservaUpdateRequest;
@@ -8,34 +11,107 @@ import com.cineflex.exception.CantidadInvalidaException;
 import com.cineflex.exception.EstadoInvalidoException;
 import com.cineflex.exception.FuncionPasadaException;
 import com.cineflex.mapper.ReservaMapper;
+import com.cineflex.model.DistribucionAsientos;
 import com.cineflex.model.Funcion;
+import com.cineflex.model.ReclamoAsiento;
 import com.cineflex.model.Reserva;
 import com.cineflex.repository.FuncionRepository;
+import com.cineflex.repository.ReservaEspecificaciones;
+import com.cineflex.repository.ReclamoAsientoRepository;
 import com.cineflex.repository.ReservaRepository;
 import com.cineflex.service.ReservaService;
+import com.cineflex.service.asientos.ExpiracionReservas;
+import com.cineflex.service.asientos.MapaAsientos;
+import com.cineflex.service.concurrencia.BloqueoFunciones;
+import com.cineflex.service.estadisticas.EstadisticasReservas;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class ReservaServiceImpl implements ReservaService {
 
+    private static final Logger log = LoggerFactory.getLogger(ReservaServiceImpl.class);
+    private static final int MAX_RESERVAS_POR_LOTE = 500;
+    private static final int LIMITE_PAGINA_POR_DEFECTO = 50;
+    private static final int LIMITE_PAGINA_MAXIMO = 500;
+    private static final Sort ORDEN_LISTADO = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
     private final ReservaRepository reservaRepository;
     private final FuncionRepository funcionRepository;
+    private final ReclamoAsientoRepository reclamoAsientoRepository;
+    private final MapaAsientos mapaAsientos;
+    private final BloqueoFunciones bloqueoFunciones;
+    private final ExpiracionReservas expiracionReservas;
+    private final EstadisticasReservas estadisticas;
+    private final Validator validator;
+    private final TransactionTemplate transaccion;
+    private final ZoneId zona;
 
-    public ReservaServiceImpl(ReservaRepository reservaRepository, FuncionRepository funcionRepository) {
+    public ReservaServiceImpl(ReservaRepository reservaRepository, FuncionRepository funcionRepository,
+                              ReclamoAsientoRepository reclamoAsientoRepository, MapaAsientos mapaAsientos,
+                              BloqueoFunciones bloqueoFunciones, ExpiracionReservas expiracionReservas,
+                              EstadisticasReservas estadisticas, Validator validator,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${cineflex.estadisticas.zona:America/Bogota}") String zona) {
         this.reservaRepository = reservaRepository;
         this.funcionRepository = funcionRepository;
+        this.reclamoAsientoRepository = reclamoAsientoRepository;
+        this.mapaAsientos = mapaAsientos;
+        this.bloqueoFunciones = bloqueoFunciones;
+        this.expiracionReservas = expiracionReservas;
+        this.estadisticas = estadisticas;
+        this.validator = validator;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.zona = ZoneId.of(zona);
+    }
+
+    /**
+     * Carga la reserva para modificarla, tomando antes el bloqueo de su función si el modo
+     * de concurrencia lo requiere.
+     */
+    private Reserva obtenerParaEscritura(Long id) {
+        if (bloqueoFunciones.activo()) {
+            Long funcionId = reservaRepository.findFuncionIdById(id)
+                    .orElseThrow(() -> new java.util.NoSuchElementException("Reserva no encontrada con id: " + id));
+            bloqueoFunciones.bloquear(funcionId);
+        }
+        return reservaRepository.findById(id)
+                .orElseThrow(() -> new java.util.NoSuchElementException("Reserva no encontrada con id: " + id));
+    }
+
+    private void validarRetencionVigente(Reserva reserva) {
+        if (expiracionReservas.vencida(reserva)) {
+            throw new EstadoInvalidoException("La reserva expiró sin pagarse y sus asientos fueron liberados");
+        }
     }
 
     private void validarFuncionNoPasada(Funcion funcion) {
@@ -48,28 +124,38 @@ public class ReservaServiceImpl implements ReservaService {
         }
     }
 
-    private void validarAsientosDisponibles(Long funcionId, List<String> asientos, Long reservaIdExcluir) {
-        List<Reserva.Estado> estadosOcupados = Arrays.asList(Reserva.Estado.CREADA, Reserva.Estado.PAGADA);
-        List<String> asientosOcupados = reservaRepository.findAsientosOcupadosByFuncionId(funcionId, estadosOcupados);
-        
-        Set<String> asientosOcupadosSet = new HashSet<>(asientosOcupados);
-        Set<String> asientosSolicitadosSet = new HashSet<>(asientos);
-        
-        if (reservaIdExcluir != null) {
-            Reserva reservaActual = reservaRepository.findById(reservaIdExcluir)
-                    .orElseThrow(() -> new java.util.NoSuchElementException("Reserva no encontrada"));
-            asientosOcupadosSet.removeAll(reservaActual.getAsientos());
+    private void validarAsientosDisponibles(Long funcionId, List<String> asientos, List<String> asientosPropios) {
+        List<String> asientosConflictivos = mapaAsientos.conflictos(funcionId, asientos);
+        if (asientosPropios != null) {
+            asientosConflictivos.removeAll(asientosPropios);
         }
         
-        List<String> asientosConflictivos = asientosSolicitadosSet.stream()
-                .filter(asientosOcupadosSet::contains)
-                .collect(Collectors.toList());
-        
         if (!asientosConflictivos.isEmpty()) {
             throw new AsientoOcupadoException("Los siguientes asientos ya están ocupados: " + String.join(", ", asientosConflictivos));
         }
     }
 
+    /**
+     * Inserta en un solo lote los reclamos de los asientos de la reserva. La clave única
+     * (funcion_id, asiento) es la que decide cuando dos reservas concurrentes piden el mismo asiento.
+     */
+    private void reclamarAsientos(Long funcionId, Reserva reserva) {
+        List<ReclamoAsiento> reclamos = reserva.getAsientos().stream()
+                .map(asiento -> new ReclamoAsiento(funcionId, asiento, reserva.getId()))
+                .collect(Collectors.toList());
+        try {
+            reclamoAsientoRepository.saveAllAndFlush(reclamos);
+        } catch (DataIntegrityViolationException e) {
+            // La transacción quedó inválida y abrir otra para consultar tomaría una segunda conexión:
+            // la reserva que ganó ya confirmó, así que su ocupación está (o estará enseguida) en el mapa
+            List<String> asientosConflictivos = mapaAsientos.conflictos(funcionId, reserva.getAsientos());
+            if (asientosConflictivos.isEmpty()) {
+                asientosConflictivos = reserva.getAsientos();
+            }
+            throw new AsientoOcupadoException("Los siguientes asientos ya están ocupados: " + String.join(", ", asientosConflictivos));
+        }
+    }
+
     private void validarCantidadVsAsientos(Integer cantidad, List<String> asientos) {
         if (cantidad != null && cantidad != asientos.size()) {
             throw new CantidadInvalidaException("La cantidad (" + cantidad + ") no coincide con el número de asientos (" + asientos.size() + ")");
@@ -84,14 +170,20 @@ public class ReservaServiceImpl implements ReservaService {
     }
 
     private void validarCapacidad(Funcion funcion, List<String> asientos) {
-        int capacidad = funcion.getCapacidad() != null ? funcion.getCapacidad() : 50;
+        int capacidad = DistribucionAsientos.capacidad(funcion);
         if (asientos.size() > capacidad) {
             throw new IllegalArgumentException("La cantidad de asientos solicitados excede la capacidad de la sala (" + capacidad + ")");
         }
+        for (String asiento : asientos) {
+            if (DistribucionAsientos.ordinal(asiento, capacidad) < 0) {
+                throw new IllegalArgumentException("El asiento " + asiento + " no existe en la sala");
+            }
+        }
     }
 
     @Override
     public ReservaResponse crear(ReservaRequest request) {
+        bloqueoFunciones.bloquear(request.getFuncionId());
         Funcion funcion = funcionRepository.findById(request.getFuncionId())
                 .orElseThrow(() -> new java.util.NoSuchElementException("Función no encontrada con id: " + request.getFuncionId()));
         
@@ -105,7 +197,144 @@ public class ReservaServiceImpl implements ReservaService {
         }
         
         Reserva r = ReservaMapper.toEntity(request, funcion);
-        return ReservaMapper.toResponse(reservaRepository.save(r));
+        Reserva guardada = reservaRepository.save(r);
+        reclamarAsientos(funcion.getId(), guardada);
+        registrarCreacion(guardada);
+        return ReservaMapper.toResponse(guardada);
+    }
+
+    private void registrarCreacion(Reserva reserva) {
+        Long funcionId = reserva.getFuncion().getId();
+        List<String> asientos = List.copyOf(reserva.getAsientos());
+        Transacciones.despuesDelCommit(() -> {
+            mapaAsientos.ocupar(funcionId, asientos);
+            expiracionReservas.registrar(reserva);
+            estadisticas.creada(funcionId, reserva.getId(), reserva.getVersion(), reserva.getCreatedAt());
+        });
+    }
+
+    /**
+     * Crea varias reservas, posiblemente de funciones distintas, en una sola transacción.
+     * Cada función y su ocupación se cargan una vez, todo se valida en memoria y los reclamos
+     * de asientos se insertan en un único lote. Las reservas inválidas se informan en su
+     * posición sin impedir que se creen las demás. Si la transacción del lote falla, se reintenta
+     * cada reserva por separado y cada posición recibe siempre su resultado.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ReservaLoteResultado> crearLote(List<ReservaRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("El lote de reservas no puede estar vacío");
+        }
+        if (requests.size() > MAX_RESERVAS_POR_LOTE) {
+            throw new IllegalArgumentException("El lote no puede superar " + MAX_RESERVAS_POR_LOTE + " reservas");
+        }
+        
+        ReservaLoteResultado[] resultados = new ReservaLoteResultado[requests.size()];
+        List<Integer> validas = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ReservaRequest request = requests.get(i);
+            Set<ConstraintViolation<ReservaRequest>> violaciones = request == null ? Set.of() : validator.validate(request);
+            if (request == null || !violaciones.isEmpty()) {
+                String mensaje = violaciones.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .collect(Collectors.joining(", "));
+                resultados[i] = ReservaLoteResultado.fallida(i, "Error de validación", mensaje);
+            } else {
+                validas.add(i);
+            }
+        }
+        
+        if (!validas.isEmpty()) {
+            try {
+                Map<Integer, ReservaLoteResultado> creadas = transaccion.execute(status -> crearValidadas(requests, validas));
+                creadas.forEach((i, resultado) -> resultados[i] = resultado);
+            } catch (RuntimeException e) {
+                // Una escritura concurrente reclamó algún asiento, o falló el lote entero (bloqueo,
+                // conexión): se reintenta cada reserva por separado
+                for (int i : validas) {
+                    ReservaRequest request = requests.get(i);
+                    try {
+                        resultados[i] = ReservaLoteResultado.creada(i, transaccion.execute(status -> crear(request)));
+                    } catch (RuntimeException ex) {
+                        resultados[i] = fallida(i, ex);
+                    }
+                }
+            }
+        }
+        return Arrays.asList(resultados);
+    }
+
+    private Map<Integer, ReservaLoteResultado> crearValidadas(List<ReservaRequest> requests, List<Integer> indices) {
+        List<Long> funcionIds = indices.stream().map(i -> requests.get(i).getFuncionId()).distinct().toList();
+        bloqueoFunciones.bloquear(funcionIds);
+        Map<Long, Funcion> funciones = funcionRepository.findAllById(funcionIds).stream()
+                .collect(Collectors.toMap(Funcion::getId, Function.identity()));
+        
+        Map<Integer, ReservaLoteResultado> resultados = new HashMap<>();
+        Map<Integer, Reserva> nuevas = new LinkedHashMap<>();
+        Map<Long, Set<String>> tomadosEnLote = new HashMap<>();
+        for (int i : indices) {
+            ReservaRequest request = requests.get(i);
+            try {
+                Funcion funcion = funciones.get(request.getFuncionId());
+                if (funcion == null) {
+                    throw new NoSuchElementException("Función no encontrada con id: " + request.getFuncionId());
+                }
+                validarFuncionNoPasada(funcion);
+                validarAsientosUnicos(request.getAsientos());
+                validarCapacidad(funcion, request.getAsientos());
+                validarAsientosDisponibles(funcion.getId(), request.getAsientos(), null);
+                if (request.getCantidad() != null) {
+                    validarCantidadVsAsientos(request.getCantidad(), request.getAsientos());
+                }
+                Set<String> tomados = tomadosEnLote.computeIfAbsent(funcion.getId(), id -> new HashSet<>());
+                List<String> repetidos = request.getAsientos().stream().filter(tomados::contains).toList();
+                if (!repetidos.isEmpty()) {
+                    throw new AsientoOcupadoException("Los siguientes asientos ya están ocupados: " + String.join(", ", repetidos));
+                }
+                tomados.addAll(request.getAsientos());
+                nuevas.put(i, ReservaMapper.toEntity(request, funcion));
+            } catch (AsientoOcupadoException | CantidadInvalidaException | FuncionPasadaException
+                     | IllegalArgumentException | NoSuchElementException e) {
+                resultados.put(i, fallida(i, e));
+            }
+        }
+        
+        reservaRepository.saveAll(nuevas.values());
+        List<ReclamoAsiento> reclamos = new ArrayList<>();
+        for (Reserva reserva : nuevas.values()) {
+            reserva.getAsientos().forEach(asiento -> reclamos.add(new ReclamoAsiento(reserva.getFuncion().getId(), asiento, reserva.getId())));
+        }
+        reclamoAsientoRepository.saveAllAndFlush(reclamos);
+        
+        nuevas.forEach((i, reserva) -> {
+            registrarCreacion(reserva);
+            resultados.put(i, ReservaLoteResultado.creada(i, ReservaMapper.toResponse(reserva)));
+        });
+        return resultados;
+    }
+
+    private static ReservaLoteResultado fallida(int indice, RuntimeException e) {
+        String error;
+        if (e instanceof AsientoOcupadoException) {
+            error = "Asiento ocupado";
+        } else if (e instanceof FuncionPasadaException) {
+            error = "Función pasada";
+        } else if (e instanceof CantidadInvalidaException) {
+            error = "Cantidad inválida";
+        } else if (e instanceof NoSuchElementException) {
+            error = "No encontrado";
+        } else if (e instanceof IllegalArgumentException) {
+            error = "Solicitud inválida";
+        } else if (e instanceof ObjectOptimisticLockingFailureException) {
+            error = "Conflicto";
+        } else {
+            // Fallo de la base de datos u otro inesperado: no se expone el detalle interno
+            log.warn("Reserva {} del lote no creada: {}", indice, e.toString());
+            return ReservaLoteResultado.fallida(indice, "Error interno", "No se pudo crear la reserva, reintente más tarde");
+        }
+        return ReservaLoteResultado.fallida(indice, error, e.getMessage());
     }
 
     @Override
@@ -116,6 +345,45 @@ public class ReservaServiceImpl implements ReservaService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public ReservaPagina listarPagina(ReservaFiltro filtro) {
+        int limite = filtro.getLimite() != null ? filtro.getLimite() : LIMITE_PAGINA_POR_DEFECTO;
+        if (limite < 1 || limite > LIMITE_PAGINA_MAXIMO) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + LIMITE_PAGINA_MAXIMO);
+        }
+        if (filtro.getDesde() != null && filtro.getHasta() != null && filtro.getDesde().isAfter(filtro.getHasta())) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+        Specification<Reserva> spec = ReservaEspecificaciones.conFuncion();
+        if (filtro.getFuncionId() != null) {
+            spec = spec.and(ReservaEspecificaciones.deFuncion(filtro.getFuncionId()));
+        }
+        if (filtro.getEstado() != null) {
+            spec = spec.and(ReservaEspecificaciones.conEstado(filtro.getEstado()));
+        }
+        // El rango de fechas es inclusivo en ambos extremos, en la misma zona que las estadísticas
+        if (filtro.getDesde() != null) {
+            spec = spec.and(ReservaEspecificaciones.creadaDesde(filtro.getDesde().atStartOfDay(zona).toInstant()));
+        }
+        if (filtro.getHasta() != null) {
+            spec = spec.and(ReservaEspecificaciones.creadaAntesDe(filtro.getHasta().plusDays(1).atStartOfDay(zona).toInstant()));
+        }
+        if (filtro.getCursor() != null && !filtro.getCursor().isBlank()) {
+            CursorReservas cursor = CursorReservas.decodificar(filtro.getCursor());
+            spec = spec.and(ReservaEspecificaciones.despuesDe(cursor.createdAt(), cursor.id()));
+        }
+
+        // Se pide una de más para saber si hay página siguiente sin contar el total
+        List<Reserva> reservas = reservaRepository.findBy(spec, q -> q.sortBy(ORDEN_LISTADO).limit(limite + 1).all());
+        String siguiente = null;
+        if (reservas.size() > limite) {
+            reservas = reservas.subList(0, limite);
+            siguiente = CursorReservas.de(reservas.get(limite - 1)).codificar();
+        }
+        return new ReservaPagina(reservas.stream().map(ReservaMapper::toResponse).collect(Collectors.toList()), siguiente);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public ReservaResponse detalle(Long id) {
@@ -126,102 +394,118 @@ public class ReservaServiceImpl implements ReservaService {
 
     @Override
     public ReservaResponse actualizar(Long id, ReservaUpdateRequest request) {
-        Reserva r = reservaRepository.findById(id)
-                .orElseThrow(() -> new java.util.NoSuchElementException("Reserva no encontrada con id: " + id));
+        Reserva r = obtenerParaEscritura(id);
         
         if (r.getEstado() != Reserva.Estado.CREADA) {
             throw new EstadoInvalidoException("Solo se pueden editar reservas con estado CREADA");
         }
+        validarRetencionVigente(r);
         
         Funcion funcion = r.getFuncion();
         validarFuncionNoPasada(funcion);
         validarAsientosUnicos(request.getAsientos());
         validarCapacidad(funcion, request.getAsientos());
-        validarAsientosDisponibles(funcion.getId(), request.getAsientos(), id);
+        validarAsientosDisponibles(funcion.getId(), request.getAsientos(), r.getAsientos());
         
+        List<String> asientosAnteriores = List.copyOf(r.getAsientos());
+        List<String> asientosNuevos = List.copyOf(request.getAsientos());
         r.setNombreCliente(request.getNombreCliente());
         r.setAsientos(request.getAsientos());
         r.setCantidad(request.getAsientos().size());
         
-        return ReservaMapper.toResponse(reservaRepository.save(r));
+        Reserva guardada = reservaRepository.save(r);
+        reclamoAsientoRepository.deleteByReservaId(id);
+        reclamarAsientos(funcion.getId(), guardada);
+        Transacciones.despuesDelCommit(() -> {
+            if (expiracionReservas.descartar(id, Reserva.Estado.CREADA)) {
+                mapaAsientos.liberar(funcion.getId(), asientosAnteriores);
+                mapaAsientos.ocupar(funcion.getId(), asientosNuevos);
+                expiracionReservas.registrar(guardada);
+            }
+        });
+        return ReservaMapper.toResponse(guardada);
     }
 
     @Override
     public void eliminar(Long id) {
-        Reserva r = reservaRepository.findById(id)
-                .orElseThrow(() -> new java.util.NoSuchElementException("Reserva no encontrada con id: " + id));
+        Reserva r = obtenerParaEscritura(id);
         
         if (r.getEstado() != Reserva.Estado.CREADA) {
             throw new EstadoInvalidoException("Solo se pueden eliminar reservas con estado CREADA");
         }
         
+        Long funcionId = r.getFuncion().getId();
+        List<String> asientos = List.copyOf(r.getAsientos());
+        Instant createdAt = r.getCreatedAt();
+        reclamoAsientoRepository.deleteByReservaId(id);
         reservaRepository.delete(r);
+        Transacciones.despuesDelCommit(() -> {
+            if (expiracionReservas.descartar(id, Reserva.Estado.CREADA)) {
+                mapaAsientos.liberar(funcionId, asientos);
+                estadisticas.eliminada(funcionId, id, createdAt, Reserva.Estado.CREADA);
+            } else {
+                // El barrido de retenciones la cuenta como cancelada
+                estadisticas.eliminada(funcionId, id, createdAt, Reserva.Estado.CANCELADA);
+            }
+        });
     }
 
     @Override
     public ReservaResponse pagar(Long id) {
-        Reserva r = reservaRepository.findById(id)
-                .orElseThrow(() -> new java.util.NoSuchElementException("Reserva no encontrada con id: " + id));
+        Reserva r = obtenerParaEscritura(id);
         
         if (r.getEstado() != Reserva.Estado.CREADA) {
             throw new EstadoInvalidoException("Solo se pueden pagar reservas con estado CREADA. Estado actual: " + r.getEstado());
         }
+        validarRetencionVigente(r);
         
         r.setEstado(Reserva.Estado.PAGADA);
-        return ReservaMapper.toResponse(reservaRepository.save(r));
+        Reserva guardada = reservaRepository.save(r);
+        Long funcionId = r.getFuncion().getId();
+        Instant createdAt = r.getCreatedAt();
+        Transacciones.despuesDelCommit(() -> {
+            expiracionReservas.descartar(id);
+            // La versión se lee aquí: el flush del commit ya la incrementó
+            estadisticas.transicion(funcionId, id, guardada.getVersion(), createdAt, Reserva.Estado.CREADA, Reserva.Estado.PAGADA);
+        });
+        return ReservaMapper.toResponse(guardada);
     }
 
     @Override
     public ReservaResponse cancelar(Long id) {
-        Reserva r = reservaRepository.findById(id)
-                .orElseThrow(() -> new java.util.NoSuchElementException("Reserva no encontrada con id: " + id));
+        Reserva r = obtenerParaEscritura(id);
         
         if (r.getEstado() == Reserva.Estado.CANCELADA) {
             throw new EstadoInvalidoException("La reserva ya está cancelada");
         }
         
+        Reserva.Estado estadoAnterior = r.getEstado();
         r.setEstado(Reserva.Estado.CANCELADA);
-        return ReservaMapper.toResponse(reservaRepository.save(r));
+        Reserva guardada = reservaRepository.save(r);
+        reclamoAsientoRepository.deleteByReservaId(id);
+        Long funcionId = r.getFuncion().getId();
+        List<String> asientos = List.copyOf(r.getAsientos());
+        Instant createdAt = r.getCreatedAt();
+        Transacciones.despuesDelCommit(() -> {
+            // Si la retención ya venció, el barrido registra la cancelación
+            if (expiracionReservas.descartar(id, estadoAnterior)) {
+                mapaAsientos.liberar(funcionId, asientos);
+                estadisticas.transicion(funcionId, id, guardada.getVersion(), createdAt, estadoAnterior, Reserva.Estado.CANCELADA);
+            }
+        });
+        return ReservaMapper.toResponse(guardada);
     }
 
+    // Sin transacción: con el mapa cargado no hace falta conexión, y su carga perezosa abre la suya
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<String> obtenerAsientosDisponibles(Long funcionId) {
-        Funcion funcion = funcionRepository.findById(funcionId)
-                .orElseThrow(() -> new java.util.NoSuchElementException("Función no encontrada con id: " + funcionId));
-        
-        int capacidad = funcion.getCapacidad() != null ? funcion.getCapacidad() : 50;
-        List<String> asientosOcupados = obtenerAsientosOcupados(funcionId);
-        Set<String> asientosOcupadosSet = new HashSet<>(asientosOcupados);
-        
-        List<String> todosLosAsientos = generarAsientos(capacidad);
-        return todosLosAsientos.stream()
-                .filter(asiento -> !asientosOcupadosSet.contains(asiento))
-                .collect(Collectors.toList());
+        return mapaAsientos.libres(funcionId);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<String> obtenerAsientosOcupados(Long funcionId) {
-        List<Reserva.Estado> estadosOcupados = Arrays.asList(Reserva.Estado.CREADA, Reserva.Estado.PAGADA);
-        return reservaRepository.findAsientosOcupadosByFuncionId(funcionId, estadosOcupados);
-    }
-
-    private List<String> generarAsientos(int capacidad) {
-        List<String> asientos = new ArrayList<>();
-        int filas = (int) Math.ceil(capacidad / 10.0);
-        char letra = 'A';
-        int numero = 1;
-        
-        for (int i = 0; i < filas && asientos.size() < capacidad; i++) {
-            for (int j = 0; j < 10 && asientos.size() < capacidad; j++) {
-                asientos.add(String.valueOf(letra) + numero);
-                numero++;
-            }
-            letra++;
-            numero = 1;
-        }
-        
-        return asientos;
+        return mapaAsientos.ocupados(funcionId);
     }
 }
@@ -0,0 +1,44 @@
+package com.cineflex.service.impl;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+final class Transacciones {
+
+    private Transacciones() { }
+
+    /**
+     * Ejecuta la acción cuando la transacción actual se confirma, o de inmediato si no hay transacción.
+     * Se usa para que las estructuras en memoria sólo reflejen cambios que llegaron a la base de datos.
+     */
+    static void despuesDelCommit(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    /**
+     * Ejecuta la acción si la transacción actual se revierte. Sirve para deshacer cambios en memoria
+     * que tienen que hacerse antes del commit para que la comprobación y el registro sean atómicos.
+     */
+    static void alRevertir(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    accion.run();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package com.cineflex.service.versiones;
+
+import com.cineflex.service.asientos.MapaAsientos;
+import com.cineflex.service.asientos.OyenteAsientos;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de versión para las ETags del catálogo y de los mapas de asientos. Los servicios
+ * los incrementan después de cada commit que modifica el recurso, así que comparar una ETag
+ * no requiere leer la base de datos ni serializar la respuesta. La época de arranque forma
+ * parte de la ETag para que un reinicio (que vuelve los contadores a cero) no repita valores.
+ */
+@Component
+public class VersionesRecursos implements OyenteAsientos {
+
+    private static final class Contadores {
+        final AtomicLong listado = new AtomicLong();
+        final ConcurrentMap<Long, AtomicLong> porId = new ConcurrentHashMap<>();
+
+        void incrementar(Long id) {
+            listado.incrementAndGet();
+            if (id != null) {
+                porId.computeIfAbsent(id, k -> new AtomicLong()).incrementAndGet();
+            }
+        }
+
+        long version(Long id) {
+            AtomicLong version = porId.get(id);
+            return version != null ? version.get() : 0L;
+        }
+    }
+
+    private final String epoca = Long.toString(System.currentTimeMillis(), 36);
+    private final Contadores peliculas = new Contadores();
+    private final Contadores funciones = new Contadores();
+    private final Contadores asientos = new Contadores();
+
+    public VersionesRecursos(MapaAsientos mapaAsientos) {
+        mapaAsientos.agregarOyente(this);
+    }
+
+    public void peliculaCambiada(Long id) {
+        peliculas.incrementar(id);
+    }
+
+    public void funcionCambiada(Long id) {
+        funciones.incrementar(id);
+    }
+
+    @Override
+    public void asientosCambiados(Long funcionId, Collection<String> tomados, Collection<String> liberados) {
+        asientos.incrementar(funcionId);
+    }
+
+    public String etagPeliculas() {
+        return etag("p", peliculas.listado.get());
+    }
+
+    public String etagPelicula(Long id) {
+        return etag("p" + id, peliculas.version(id));
+    }
+
+    public String etagFunciones() {
+        return etag("f", funciones.listado.get());
+    }
+
+    public String etagFuncion(Long id) {
+        return etag("f" + id, funciones.version(id));
+    }
+
+    public String etagAsientos(Long funcionId) {
+        // La función también cuenta: si se elimina, la ETag del mapa deja de coincidir
+        return etag("a" + funcionId, asientos.version(funcionId) + "." + funciones.version(funcionId));
+    }
+
+    private String etag(String recurso, Object version) {
+        return "\"" + recurso + "-" + epoca + "-" + version + "\"";
+    }
+}
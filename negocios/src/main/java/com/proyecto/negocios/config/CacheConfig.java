@@ -0,0 +1,50 @@
+package com.proyecto.negocios.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cachés del catálogo (Caffeine, desalojo W-TinyLFU) con tamaño máximo y TTL. El gestor es
+ * consciente de la transacción: los put y evict hechos dentro de una transacción se aplican
+ * después del commit, así una lectura concurrente no vuelve a guardar el valor anterior.
+ * Cambiar o eliminar una película vacía también "funciones" y "funcionesListado" para no
+ * seguir sirviendo funciones que apuntan a una película modificada o inexistente.
+ * Las métricas (cache.gets, cache.puts, cache.evictions) se publican en el actuator.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(@Value("${cineflex.cache.ttl-minutos:10}") long ttlMinutos,
+                                     @Value("${cineflex.cache.peliculas.max:1000}") long maxPeliculas,
+                                     @Value("${cineflex.cache.funciones.max:5000}") long maxFunciones,
+                                     @Value("${cineflex.cache.funciones-listado.max:500}") long maxListados) {
+        Duration ttl = Duration.ofMinutes(ttlMinutos);
+        CaffeineCacheManager manager = new CaffeineCacheManager();
+        manager.registerCustomCache("peliculas", caffeine(maxPeliculas, ttl));
+        manager.registerCustomCache("funciones", caffeine(maxFunciones, ttl));
+        manager.registerCustomCache("funcionesListado", caffeine(maxListados, ttl));
+        // Sólo las cachés registradas; un nombre desconocido en una anotación es un error
+        manager.setCacheNames(List.of());
+        return new TransactionAwareCacheManagerProxy(manager);
+    }
+
+    private static Cache<Object, Object> caffeine(long max, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(max)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,122 @@
+package com.proyecto.negocios.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DataSource que limita con un semáforo cuántas conexiones pueden estar en uso a la vez y cuántos
+ * hilos pueden esperar una. Con hilos virtuales no hay pool de hilos que frene la entrada, así que
+ * sin este límite miles de peticiones se quedarían esperando en el pool de conexiones hasta su
+ * timeout; aquí esperan como mucho {@code esperaMs} y, si la cola ya está llena, se rechazan al momento.
+ * El permiso se devuelve al cerrar la conexión.
+ */
+final class ConexionesLimitadas extends DelegatingDataSource {
+
+    @FunctionalInterface
+    private interface Apertura {
+        Connection abrir() throws SQLException;
+    }
+
+    private final Semaphore permisos;
+    private final int limite;
+    private final long esperaMs;
+    private final int colaMaxima;
+    private final AtomicInteger enEspera = new AtomicInteger();
+    private final AtomicLong rechazos = new AtomicLong();
+
+    ConexionesLimitadas(DataSource destino, int limite, long esperaMs, int colaMaxima) {
+        super(destino);
+        this.permisos = new Semaphore(limite, true);
+        this.limite = limite;
+        this.esperaMs = esperaMs;
+        this.colaMaxima = colaMaxima;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return conPermiso(() -> obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return conPermiso(() -> obtainTargetDataSource().getConnection(username, password));
+    }
+
+    int enUso() {
+        return limite - permisos.availablePermits();
+    }
+
+    int enEspera() {
+        return enEspera.get();
+    }
+
+    long rechazos() {
+        return rechazos.get();
+    }
+
+    private Connection conPermiso(Apertura apertura) throws SQLException {
+        adquirir();
+        try {
+            return liberarAlCerrar(apertura.abrir());
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    private void adquirir() throws SQLException {
+        if (permisos.tryAcquire()) {
+            return;
+        }
+        if (enEspera.incrementAndGet() > colaMaxima) {
+            enEspera.decrementAndGet();
+            throw rechazo("hay " + colaMaxima + " peticiones esperando conexión");
+        }
+        try {
+            if (!permisos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS)) {
+                throw rechazo("no se obtuvo conexión en " + esperaMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido mientras esperaba una conexión", e);
+        } finally {
+            enEspera.decrementAndGet();
+        }
+    }
+
+    private SQLTransientConnectionException rechazo(String motivo) {
+        rechazos.incrementAndGet();
+        return new SQLTransientConnectionException("Base de datos saturada: " + motivo);
+    }
+
+    private Connection liberarAlCerrar(Connection conexion) {
+        AtomicBoolean cerrada = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, metodo, args) -> {
+                    if ("close".equals(metodo.getName()) && cerrada.compareAndSet(false, true)) {
+                        try {
+                            conexion.close();
+                        } finally {
+                            permisos.release();
+                        }
+                        return null;
+                    }
+                    try {
+                        return metodo.invoke(conexion, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
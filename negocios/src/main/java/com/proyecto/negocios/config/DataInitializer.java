@@ -2,6 +2,7 @@ package com.proyecto.negocios.config;
 
 import com.proyecto.negocios.domain.Usuario;
 import com.proyecto.negocios.repository.UsuarioRepository;
+import com.proyecto.negocios.service.emails.IndiceEmails;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
@@ -11,35 +12,40 @@ public class DataInitializer implements CommandLineRunner {
 
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
+    private final IndiceEmails indiceEmails;
 
-    public DataInitializer(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder) {
+    public DataInitializer(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder,
+                           IndiceEmails indiceEmails) {
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
+        this.indiceEmails = indiceEmails;
     }
 
     @Override
     public void run(String... args) {
         // Crear usuario administrador por defecto si no existe
-        if (!usuarioRepository.existsByEmail("admin@cineflex.com")) {
+        if (!indiceEmails.registrado("admin@cineflex.com")) {
             Usuario admin = new Usuario();
             admin.setEmail("admin@cineflex.com");
             admin.setNombre("Administrador");
             admin.setPasswordHash(passwordEncoder.encode("admin123"));
             admin.setEnabled(true);
             usuarioRepository.save(admin);
+            indiceEmails.agregar(admin.getEmail());
             System.out.println("✅ Usuario administrador creado:");
             System.out.println("   Email: admin@cineflex.com");
             System.out.println("   Password: admin123");
         }
 
         // Crear usuario de prueba si no existe
-        if (!usuarioRepository.existsByEmail("test@cineflex.com")) {
+        if (!indiceEmails.registrado("test@cineflex.com")) {
             Usuario test = new Usuario();
             test.setEmail("test@cineflex.com");
             test.setNombre("Usuario de Prueba");
             test.setPasswordHash(passwordEncoder.encode("test123"));
             test.setEnabled(true);
             usuarioRepository.save(test);
+            indiceEmails.agregar(test.getEmail());
             System.out.println("✅ Usuario de prueba creado:");
             System.out.println("   Email: test@cineflex.com");
             System.out.println("   Password: test123");
@@ -2,20 +2,29 @@ package com.proyecto.negocios.config;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import com.cineflex.exception.AsientoOcupadoException;
 import com.cineflex.exception.CantidadInvalidaException;
 import com.cineflex.exception.EstadoInvalidoException;
 import com.cineflex.exception.FuncionPasadaException;
+import com.cineflex.exception.HorarioOcupadoException;
+import com.cineflex.exception.SolicitudEnCursoException;
+import com.proyecto.negocios.security.DemasiadosIntentosException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -45,6 +54,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<Map<String, Object>> handleTypeMismatch(MethodArgumentTypeMismatchException e) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.BAD_REQUEST.value());
+        error.put("error", "Solicitud inválida");
+        error.put("message", "Valor inválido para el parámetro " + e.getName() + ": " + e.getValue());
+        error.put("timestamp", LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
     @ExceptionHandler(AsientoOcupadoException.class)
     public ResponseEntity<Map<String, Object>> handleAsientoOcupado(AsientoOcupadoException e) {
         Map<String, Object> error = new HashMap<>();
@@ -75,6 +94,26 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    @ExceptionHandler(HorarioOcupadoException.class)
+    public ResponseEntity<Map<String, Object>> handleHorarioOcupado(HorarioOcupadoException e) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.BAD_REQUEST.value());
+        error.put("error", "Horario ocupado");
+        error.put("message", e.getMessage());
+        error.put("timestamp", LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(SolicitudEnCursoException.class)
+    public ResponseEntity<Map<String, Object>> handleSolicitudEnCurso(SolicitudEnCursoException e) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.CONFLICT.value());
+        error.put("error", "Solicitud en curso");
+        error.put("message", e.getMessage());
+        error.put("timestamp", LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.CONFLICT).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+    }
+
     @ExceptionHandler(CantidadInvalidaException.class)
     public ResponseEntity<Map<String, Object>> handleCantidadInvalida(CantidadInvalidaException e) {
         Map<String, Object> error = new HashMap<>();
@@ -85,6 +124,60 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    // Otra escritura (p. ej. el vencimiento de la retención) cambió el registro mientras se procesaba
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleConflictoVersion(ObjectOptimisticLockingFailureException e) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.CONFLICT.value());
+        error.put("error", "Conflicto");
+        error.put("message", "El registro cambió mientras se procesaba la solicitud, vuelva a consultarlo");
+        error.put("timestamp", LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(BadCredentialsException.class)
+    public ResponseEntity<Map<String, Object>> handleBadCredentials(BadCredentialsException e) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.UNAUTHORIZED.value());
+        error.put("error", "No autorizado");
+        error.put("message", e.getMessage());
+        error.put("timestamp", LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+    }
+
+    // Sin conexión disponible a tiempo (pool o limitador de base de datos): el cliente puede reintentar
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<Map<String, Object>> handleSinConexion(CannotCreateTransactionException e) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        error.put("error", "Servicio saturado");
+        error.put("message", "No hay conexiones a la base de datos disponibles, intente de nuevo en unos segundos");
+        error.put("timestamp", LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+    }
+
+    @ExceptionHandler(DemasiadosIntentosException.class)
+    public ResponseEntity<Map<String, Object>> handleDemasiadosIntentos(DemasiadosIntentosException e) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        error.put("error", "Demasiadas solicitudes");
+        error.put("message", e.getMessage());
+        error.put("timestamp", LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getReintentarEnSegundos())).body(error);
+    }
+
+    // Pool de BCrypt lleno: se rechaza enseguida para no retener hilos de Tomcat
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, Object>> handleRechazada(RejectedExecutionException e) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        error.put("error", "Servicio saturado");
+        error.put("message", e.getMessage());
+        error.put("timestamp", LocalDateTime.now());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException e) {
         System.err.println("MethodArgumentNotValidException capturada en GlobalExceptionHandler");
@@ -0,0 +1,57 @@
+package com.proyecto.negocios.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Con spring.threads.virtual.enabled=true envuelve el DataSource en {@link ConexionesLimitadas}
+ * para que la concurrencia de peticiones quede acotada por la base de datos y no por los hilos.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class LimitadorBaseDatosConfig {
+
+    @Bean
+    public static BeanPostProcessor limitadorBaseDatos(Environment env) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConexionesLimitadas) {
+                    return bean;
+                }
+                int limite = env.getProperty("cineflex.db.limitador.permisos", Integer.class,
+                        env.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+                long esperaMs = env.getProperty("cineflex.db.limitador.espera-ms", Long.class, 2000L);
+                int colaMaxima = env.getProperty("cineflex.db.limitador.cola-max", Integer.class, 500);
+                return new ConexionesLimitadas(dataSource, limite, esperaMs, colaMaxima);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder metricasLimitadorBaseDatos(DataSource dataSource) {
+        return registro -> {
+            if (!(dataSource instanceof ConexionesLimitadas limitado)) {
+                return;
+            }
+            Gauge.builder("cineflex.db.limitador.en_uso", limitado, ConexionesLimitadas::enUso)
+                    .description("Conexiones en uso bajo el limitador de base de datos")
+                    .register(registro);
+            Gauge.builder("cineflex.db.limitador.en_espera", limitado, ConexionesLimitadas::enEspera)
+                    .description("Hilos esperando un permiso de conexión")
+                    .register(registro);
+            FunctionCounter.builder("cineflex.db.limitador.rechazos", limitado, ConexionesLimitadas::rechazos)
+                    .description("Peticiones rechazadas por base de datos saturada")
+                    .register(registro);
+        };
+    }
+}
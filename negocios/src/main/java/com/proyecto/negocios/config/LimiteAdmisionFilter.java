@@ -0,0 +1,53 @@
+package com.proyecto.negocios.config;
+
+import com.cineflex.service.admision.ControlAdmision;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Aplica {@link ControlAdmision} al principio de la cadena de seguridad: lo que no se admite
+ * responde 429 con Retry-After sin llegar a los controladores ni abrir transacción.
+ */
+class LimiteAdmisionFilter extends OncePerRequestFilter {
+
+    private final ControlAdmision controlAdmision;
+    private final ObjectMapper objectMapper;
+
+    LimiteAdmisionFilter(ControlAdmision controlAdmision, ObjectMapper objectMapper) {
+        this.controlAdmision = controlAdmision;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        ControlAdmision.Decision decision = controlAdmision.admitir(request.getMethod(), ruta, request.getRemoteAddr());
+        if (decision.admitida()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        error.put("error", "Demasiadas solicitudes");
+        error.put("message", "Se superó el límite de solicitudes, reintente en " + decision.reintentarEnSegundos() + " s");
+        error.put("timestamp", LocalDateTime.now());
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.reintentarEnSegundos()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
@@ -1,16 +1,24 @@
 package com.proyecto.negocios.config;
 
+import com.cineflex.service.admision.AdmisionProperties;
+import com.cineflex.service.admision.ControlAdmision;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proyecto.negocios.security.PasswordEncoderAcotado;
+import com.proyecto.negocios.security.TokensSesion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.filter.CorsFilter;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -18,11 +26,19 @@ import java.util.List;
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties(AdmisionProperties.class)
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, ControlAdmision controlAdmision,
+                                           TokensSesion tokensSesion, ObjectMapper objectMapper) throws Exception {
         http
+                // Tras CORS para que los 429 también lleven sus cabeceras
+                .addFilterAfter(new LimiteAdmisionFilter(controlAdmision, objectMapper), CorsFilter.class)
+                // Sin sesión ni Basic: cada petición trae su token firmado y BCrypt sólo se usa al hacer login
+                .addFilterBefore(new TokenAutenticacionFilter(tokensSesion, objectMapper),
+                        UsernamePasswordAuthenticationFilter.class)
+                .sessionManagement(sesion -> sesion.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
@@ -34,10 +50,10 @@ public class SecurityConfig {
                         .requestMatchers("/api/peliculas/**").permitAll()
                         .requestMatchers("/api/funciones/**").permitAll()
                         .requestMatchers("/api/reservas/**").permitAll()
-                        .requestMatchers("/api/stats").permitAll()
+                        .requestMatchers("/api/cartelera/**").permitAll()
+                        .requestMatchers("/api/stats", "/api/stats/**").permitAll()
                         .anyRequest().permitAll()
-                )
-                .httpBasic(Customizer.withDefaults());
+                );
 
         http.headers(headers -> headers.frameOptions(frame -> frame.disable()));
         return http.build();
@@ -63,7 +79,8 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(allowedOrigins);
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH", "HEAD"));
         configuration.setAllowedHeaders(Collections.singletonList("*"));
-        configuration.setExposedHeaders(Arrays.asList("*"));
+        // Con credenciales el comodín no expone cabeceras propias, hay que nombrarlas
+        configuration.setExposedHeaders(Arrays.asList("*", "X-Next-Cursor", "Idempotent-Replayed"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         
@@ -73,8 +90,16 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${cineflex.auth.bcrypt.objetivo-ms:100}") long objetivoMs,
+                                           @Value("${cineflex.auth.bcrypt.coste-min:10}") int costeMinimo,
+                                           @Value("${cineflex.auth.bcrypt.coste-max:14}") int costeMaximo,
+                                           @Value("${cineflex.auth.bcrypt.hilos:0}") int hilos,
+                                           @Value("${cineflex.auth.bcrypt.cola-max:50}") int colaMaxima,
+                                           @Value("${cineflex.auth.bcrypt.espera-ms:3000}") long esperaMs) {
+        int coste = PasswordEncoderAcotado.calibrar(objetivoMs, costeMinimo, costeMaximo);
+        // Por defecto la mitad de los núcleos: el resto queda para las reservas
+        int hilosHash = hilos > 0 ? hilos : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new PasswordEncoderAcotado(coste, hilosHash, colaMaxima, esperaMs);
     }
 }
 
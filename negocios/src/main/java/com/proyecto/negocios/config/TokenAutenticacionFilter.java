@@ -0,0 +1,74 @@
+package com.proyecto.negocios.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proyecto.negocios.security.TokensSesion;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Autentica con la cabecera {@code Authorization: Bearer <token de acceso>}. Sólo verifica la firma
+ * HMAC y el vencimiento: no consulta la base de datos. El principal es el id del usuario.
+ * Un token inválido responde 401 salvo en /api/auth/**, para poder refrescarlo o volver a entrar.
+ */
+class TokenAutenticacionFilter extends OncePerRequestFilter {
+
+    private static final String PREFIJO = TokensSesion.TIPO + " ";
+
+    private final TokensSesion tokensSesion;
+    private final ObjectMapper objectMapper;
+    private final SecurityContextHolderStrategy contextos = SecurityContextHolder.getContextHolderStrategy();
+
+    TokenAutenticacionFilter(TokensSesion tokensSesion, ObjectMapper objectMapper) {
+        this.tokensSesion = tokensSesion;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String cabecera = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (cabecera == null || !cabecera.regionMatches(true, 0, PREFIJO, 0, PREFIJO.length())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Long usuarioId = tokensSesion.verificarAcceso(cabecera.substring(PREFIJO.length()).trim());
+        if (usuarioId != null) {
+            SecurityContext contexto = contextos.createEmptyContext();
+            contexto.setAuthentication(new UsernamePasswordAuthenticationToken(usuarioId, null, List.of()));
+            contextos.setContext(contexto);
+        } else if (!request.getRequestURI().startsWith(request.getContextPath() + "/api/auth/")) {
+            rechazar(response);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private void rechazar(HttpServletResponse response) throws IOException {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", HttpStatus.UNAUTHORIZED.value());
+        error.put("error", "No autorizado");
+        error.put("message", "Token de acceso inválido o vencido");
+        error.put("timestamp", LocalDateTime.now());
+        response.setStatus(HttpStatus.UNAUTHORIZED.value());
+        response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), error);
+    }
+}
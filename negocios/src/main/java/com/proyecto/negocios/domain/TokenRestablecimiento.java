@@ -0,0 +1,76 @@
+package com.proyecto.negocios.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Token de restablecimiento de contraseña pendiente. Sólo se guarda el SHA-256 del token, que es
+ * la clave primaria: buscarlo es un acceso por índice y quien lea la tabla no puede usarlo.
+ */
+@Entity
+@Table(name = "tokens_restablecimiento", indexes = {
+        @Index(name = "idx_tokens_restablecimiento_usuario", columnList = "usuario_id"),
+        @Index(name = "idx_tokens_restablecimiento_expira", columnList = "expira_en")
+})
+public class TokenRestablecimiento implements Persistable<String> {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(name = "expira_en", nullable = false)
+    private Instant expiraEn;
+
+    // La clave es asignada, así que se marca como nuevo para que save() haga persist sin un SELECT previo
+    @Transient
+    private boolean nuevo = true;
+
+    public TokenRestablecimiento() {
+    }
+
+    public TokenRestablecimiento(String hash, Long usuarioId, Instant expiraEn) {
+        this.hash = hash;
+        this.usuarioId = usuarioId;
+        this.expiraEn = expiraEn;
+    }
+
+    @Override
+    public String getId() {
+        return hash;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+
+    public Instant getExpiraEn() {
+        return expiraEn;
+    }
+
+    @Override
+    public boolean isNew() {
+        return nuevo;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarPersistido() {
+        this.nuevo = false;
+    }
+}
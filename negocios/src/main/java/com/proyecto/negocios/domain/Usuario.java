@@ -5,17 +5,19 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
-import java.time.Instant;
 
 @Entity
 @Table(name = "usuarios")
 public class Usuario {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuarios_seq")
+    @SequenceGenerator(name = "usuarios_seq", sequenceName = "usuarios_seq", allocationSize = 50)
     private Long id;
 
+    // Siempre normalizado (IndiceEmails.normalizar); en la base hay además un índice único sobre lower(email)
     @Column(nullable = false, unique = true, length = 180)
     private String email;
 
@@ -28,12 +30,6 @@ public class Usuario {
     @Column(nullable = false)
     private boolean enabled = true;
 
-    @Column(name = "reset_token", length = 100)
-    private String resetToken;
-
-    @Column(name = "reset_token_exp")
-    private Instant resetTokenExp;
-
     public Long getId() {
         return id;
     }
@@ -73,22 +69,4 @@ public class Usuario {
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
     }
-
-    public String getResetToken() {
-        return resetToken;
-    }
-
-    public void setResetToken(String resetToken) {
-        this.resetToken = resetToken;
-    }
-
-    public Instant getResetTokenExp() {
-        return resetTokenExp;
-    }
-
-    public void setResetTokenExp(Instant resetTokenExp) {
-        this.resetTokenExp = resetTokenExp;
-    }
 }
-
-
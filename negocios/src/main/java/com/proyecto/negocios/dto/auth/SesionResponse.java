@@ -0,0 +1,38 @@
+package com.proyecto.negocios.dto.auth;
+
+public class SesionResponse {
+
+    private Long userId;
+    private String accessToken;
+    private String refreshToken;
+    private String tokenType;
+    private long expiresIn;
+
+    public SesionResponse(Long userId, String accessToken, String refreshToken, String tokenType, long expiresIn) {
+        this.userId = userId;
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.tokenType = tokenType;
+        this.expiresIn = expiresIn;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public String getTokenType() {
+        return tokenType;
+    }
+
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+}
@@ -0,0 +1,26 @@
+package com.proyecto.negocios.repository;
+
+import com.proyecto.negocios.domain.TokenRestablecimiento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface TokenRestablecimientoRepository extends JpaRepository<TokenRestablecimiento, String> {
+    @Modifying
+    @Query("delete from TokenRestablecimiento t where t.usuarioId = :usuarioId")
+    int deleteByUsuario(@Param("usuarioId") Long usuarioId);
+
+    // Borrar es lo que consume el token: entre dos nodos sólo uno obtiene 1
+    @Modifying
+    @Query("delete from TokenRestablecimiento t where t.hash = :hash")
+    int consumir(@Param("hash") String hash);
+
+    @Modifying
+    @Query("delete from TokenRestablecimiento t where t.expiraEn < :ahora")
+    int deleteVencidos(@Param("ahora") Instant ahora);
+}
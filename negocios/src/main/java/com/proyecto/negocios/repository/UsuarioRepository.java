@@ -2,15 +2,19 @@ package com.proyecto.negocios.repository;
 
 import com.proyecto.negocios.domain.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByEmail(String email);
-    Optional<Usuario> findByResetToken(String resetToken);
     boolean existsByEmail(String email);
+
+    @Query("select u.email from Usuario u")
+    Stream<String> streamEmails();
 }
 
 
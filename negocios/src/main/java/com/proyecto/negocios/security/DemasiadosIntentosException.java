@@ -0,0 +1,15 @@
+package com.proyecto.negocios.security;
+
+public class DemasiadosIntentosException extends RuntimeException {
+
+    private final long reintentarEnSegundos;
+
+    public DemasiadosIntentosException(String message, long reintentarEnSegundos) {
+        super(message);
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+
+    public long getReintentarEnSegundos() {
+        return reintentarEnSegundos;
+    }
+}
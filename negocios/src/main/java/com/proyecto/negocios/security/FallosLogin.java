@@ -0,0 +1,184 @@
+package com.proyecto.negocios.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logins fallidos recientes por email y por IP en ventanas deslizantes. Cada intento se cuenta
+ * (comprobando el límite en la misma operación atómica) antes de buscar el usuario y de calcular
+ * BCrypt, y se descuenta si resulta válido: un intento bloqueado no cuesta ni una consulta ni un
+ * hash, y varios simultáneos no pueden colarse por el mismo lugar libre. Cada mapa guarda como
+ * mucho {@code max-claves} entradas; lleno, se adelanta el barrido y, si no alcanza, un email nuevo
+ * sólo queda sujeto al límite de su IP (compartir una ventana de 5 fallos entre todos los emails
+ * nuevos bloquearía el login de cualquiera durante un ataque con muchos emails) y las IP nuevas
+ * comparten una ventana común con su propio límite, mucho mayor, en vez de quedar sin límite.
+ */
+@Component
+public class FallosLogin {
+
+    /** Intento ya contado; se entrega en {@link #registrarExito} o {@link #descontar}. */
+    public static final class Intento {
+        private final VentanaDeslizante email;
+        private final long ventanaEmail;
+        private final VentanaDeslizante ip;
+        private final long ventanaIp;
+
+        private Intento(VentanaDeslizante email, long ventanaEmail, VentanaDeslizante ip, long ventanaIp) {
+            this.email = email;
+            this.ventanaEmail = ventanaEmail;
+            this.ip = ip;
+            this.ventanaIp = ventanaIp;
+        }
+    }
+
+    private final long ventanaMs;
+    private final int maximoPorEmail;
+    private final int maximoPorIp;
+    private final int maximoClaves;
+    private final int maximoIpsDesbordadas;
+    private final ConcurrentMap<String, VentanaDeslizante> porEmail = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, VentanaDeslizante> porIp = new ConcurrentHashMap<>();
+    private final VentanaDeslizante ipsDesbordadas;
+    private final AtomicLong proximaPurga = new AtomicLong();
+    private final Counter fallos;
+    private final Counter bloqueadosEmail;
+    private final Counter bloqueadosIp;
+
+    public FallosLogin(MeterRegistry registro,
+                       @Value("${cineflex.auth.intentos.ventana-segundos:900}") long ventanaSegundos,
+                       @Value("${cineflex.auth.intentos.max-por-email:5}") int maximoPorEmail,
+                       @Value("${cineflex.auth.intentos.max-por-ip:20}") int maximoPorIp,
+                       @Value("${cineflex.auth.intentos.max-claves:100000}") int maximoClaves,
+                       @Value("${cineflex.auth.intentos.max-ips-desbordadas:2000}") int maximoIpsDesbordadas) {
+        this.ventanaMs = ventanaSegundos * 1000;
+        this.maximoPorEmail = maximoPorEmail;
+        this.maximoPorIp = maximoPorIp;
+        this.maximoClaves = maximoClaves;
+        this.maximoIpsDesbordadas = maximoIpsDesbordadas;
+        this.ipsDesbordadas = new VentanaDeslizante(ventanaMs, System.currentTimeMillis());
+        this.fallos = Counter.builder("cineflex.auth.login.fallos")
+                .description("Logins fallidos (usuario inexistente o contraseña incorrecta)")
+                .register(registro);
+        this.bloqueadosEmail = bloqueados(registro, "email");
+        this.bloqueadosIp = bloqueados(registro, "ip");
+        Gauge.builder("cineflex.auth.login.claves", porEmail, ConcurrentMap::size)
+                .description("Claves con fallos recientes").tag("ambito", "email").register(registro);
+        Gauge.builder("cineflex.auth.login.claves", porIp, ConcurrentMap::size)
+                .description("Claves con fallos recientes").tag("ambito", "ip").register(registro);
+    }
+
+    /**
+     * Cuenta el intento para la IP y el email, o lanza {@link DemasiadosIntentosException} sin contarlo
+     * si alguno ya llegó a su límite de fallos.
+     */
+    public Intento intentar(String email, String ip) {
+        long ahora = System.currentTimeMillis();
+        VentanaDeslizante deIp = ip == null ? null : ventana(porIp, ip, ipsDesbordadas, ahora);
+        int maximoIp = deIp == ipsDesbordadas ? maximoIpsDesbordadas : maximoPorIp;
+        long ventanaIp = -1;
+        if (deIp != null) {
+            ventanaIp = deIp.intentar(maximoIp, ahora);
+            if (ventanaIp < 0) {
+                bloqueadosIp.increment();
+                throw rechazo(deIp, maximoIp, ahora);
+            }
+        }
+        // Con el mapa de emails lleno, un email nuevo no tiene ventana propia y sólo cuenta su IP
+        VentanaDeslizante deEmail = email == null ? null : ventana(porEmail, clave(email), null, ahora);
+        long ventanaEmail = -1;
+        if (deEmail != null) {
+            ventanaEmail = deEmail.intentar(maximoPorEmail, ahora);
+            if (ventanaEmail < 0) {
+                if (deIp != null) {
+                    deIp.descontar(ventanaIp, ahora);
+                }
+                bloqueadosEmail.increment();
+                throw rechazo(deEmail, maximoPorEmail, ahora);
+            }
+        }
+        return new Intento(deEmail, ventanaEmail, deIp, ventanaIp);
+    }
+
+    public void registrarFallo() {
+        fallos.increment();
+    }
+
+    /**
+     * Credenciales válidas: el intento no cuenta como fallo y se olvidan los fallos previos del email.
+     */
+    public void registrarExito(Intento intento) {
+        long ahora = System.currentTimeMillis();
+        if (intento.ip != null) {
+            intento.ip.descontar(intento.ventanaIp, ahora);
+        }
+        if (intento.email != null) {
+            intento.email.reiniciar(ahora);
+        }
+    }
+
+    /**
+     * El intento no llegó a comprobar la contraseña (p. ej. BCrypt saturado): no cuenta.
+     */
+    public void descontar(Intento intento) {
+        long ahora = System.currentTimeMillis();
+        if (intento.ip != null) {
+            intento.ip.descontar(intento.ventanaIp, ahora);
+        }
+        if (intento.email != null) {
+            intento.email.descontar(intento.ventanaEmail, ahora);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cineflex.auth.intentos.barrido-ms:60000}",
+               initialDelayString = "${cineflex.auth.intentos.barrido-ms:60000}")
+    public void purgar() {
+        long ahora = System.currentTimeMillis();
+        porEmail.values().removeIf(v -> v.vacia(ahora));
+        porIp.values().removeIf(v -> v.vacia(ahora));
+    }
+
+    private VentanaDeslizante ventana(ConcurrentMap<String, VentanaDeslizante> mapa, String clave,
+                                      VentanaDeslizante desbordadas, long ahora) {
+        VentanaDeslizante ventana = mapa.get(clave);
+        if (ventana != null) {
+            return ventana;
+        }
+        if (mapa.size() >= maximoClaves) {
+            // Como mucho un barrido adelantado por segundo
+            long prevista = proximaPurga.get();
+            if (ahora >= prevista && proximaPurga.compareAndSet(prevista, ahora + 1000)) {
+                purgar();
+            }
+            if (mapa.size() >= maximoClaves) {
+                return desbordadas;
+            }
+        }
+        return mapa.computeIfAbsent(clave, c -> new VentanaDeslizante(ventanaMs, ahora));
+    }
+
+    private static DemasiadosIntentosException rechazo(VentanaDeslizante ventana, int maximo, long ahora) {
+        long esperaMs = Math.max(1, ventana.esperaHastaBajarDe(maximo, ahora));
+        long segundos = Math.max(1, (esperaMs + 999) / 1000);
+        return new DemasiadosIntentosException("Demasiados intentos fallidos, reintente en " + segundos + " s", segundos);
+    }
+
+    private static String clave(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Counter bloqueados(MeterRegistry registro, String motivo) {
+        return Counter.builder("cineflex.auth.login.bloqueados")
+                .description("Logins rechazados por exceso de fallos antes de consultar o calcular el hash")
+                .tag("motivo", motivo)
+                .register(registro);
+    }
+}
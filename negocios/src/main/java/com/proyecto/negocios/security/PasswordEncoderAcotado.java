@@ -0,0 +1,116 @@
+package com.proyecto.negocios.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt en un pool propio de pocos hilos con cola acotada. Una avalancha de logins sólo puede
+ * ocupar esos hilos: lo que no cabe en la cola, o no empieza a tiempo, se rechaza enseguida con
+ * {@link RejectedExecutionException} (503) en vez de quedarse con los hilos de Tomcat.
+ * El coste se calibra al arrancar con {@link #calibrar}.
+ */
+public class PasswordEncoderAcotado implements PasswordEncoder, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordEncoderAcotado.class);
+
+    private final BCryptPasswordEncoder bcrypt;
+    private final ThreadPoolExecutor ejecutor;
+    private final long esperaMs;
+
+    public PasswordEncoderAcotado(int coste, int hilos, int colaMaxima, long esperaMs) {
+        this.bcrypt = new BCryptPasswordEncoder(coste);
+        AtomicInteger numero = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(colaMaxima), tarea -> {
+                    Thread hilo = new Thread(tarea, "bcrypt-" + numero.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.esperaMs = esperaMs;
+    }
+
+    /**
+     * Mayor coste de BCrypt (entre {@code minimo} y {@code maximo}) cuyo hash tarda como mucho
+     * {@code objetivoMs} en esta máquina. Cada punto de coste duplica el tiempo, así que basta con
+     * medir el mínimo y extrapolar. Nunca baja del mínimo aunque la máquina sea lenta.
+     */
+    public static int calibrar(long objetivoMs, int minimo, int maximo) {
+        BCryptPasswordEncoder prueba = new BCryptPasswordEncoder(minimo);
+        long mejor = Long.MAX_VALUE;
+        // La primera medición incluye el calentamiento del JIT: se toma la más rápida de tres
+        for (int i = 0; i < 3; i++) {
+            long inicio = System.nanoTime();
+            prueba.encode("calibracion");
+            mejor = Math.min(mejor, System.nanoTime() - inicio);
+        }
+        int coste = minimo;
+        double ms = mejor / 1_000_000.0;
+        while (coste < maximo && ms * 2 <= objetivoMs) {
+            coste++;
+            ms *= 2;
+        }
+        log.info("Coste de BCrypt calibrado: {} (~{} ms por hash, objetivo {} ms)", coste, Math.round(ms), objetivoMs);
+        return coste;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return ejecutar(() -> bcrypt.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return ejecutar(() -> bcrypt.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return bcrypt.upgradeEncoding(encodedPassword);
+    }
+
+    public int enCola() {
+        return ejecutor.getQueue().size();
+    }
+
+    @Override
+    public void destroy() {
+        ejecutor.shutdownNow();
+    }
+
+    private <T> T ejecutar(Callable<T> tarea) {
+        Future<T> futuro;
+        try {
+            futuro = ejecutor.submit(tarea);
+        } catch (RejectedExecutionException e) {
+            throw new RejectedExecutionException("Demasiadas verificaciones de contraseña en curso");
+        }
+        try {
+            return futuro.get(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            throw new RejectedExecutionException("Demasiadas verificaciones de contraseña en curso");
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Verificación de contraseña interrumpida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.proyecto.negocios.security;
+
+import com.proyecto.negocios.domain.TokenRestablecimiento;
+import com.proyecto.negocios.repository.TokenRestablecimientoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tokens de restablecimiento de contraseña. Se guarda sólo su SHA-256 en un mapa en memoria con
+ * vencimiento, así que validar uno es una búsqueda O(1) que no toca la tabla usuarios. Cada usuario
+ * tiene como mucho un token vigente: emitir otro reemplaza el anterior. Un barrido periódico quita
+ * los vencidos. Con cineflex.auth.reset.persistir=true también se guardan en tokens_restablecimiento
+ * (clave primaria = hash) para que sirvan en cualquier nodo y sobrevivan a un reinicio; entonces
+ * borrar la fila es lo que consume el token.
+ */
+@Component
+public class TokensRestablecimiento {
+
+    private static final Logger log = LoggerFactory.getLogger(TokensRestablecimiento.class);
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+    private record Entrada(Long usuarioId, Instant expiraEn) { }
+
+    private final TokenRestablecimientoRepository repository;
+    private final TransactionTemplate transaccion;
+    private final Duration duracion;
+    private final boolean persistir;
+    private final SecureRandom aleatorio = new SecureRandom();
+    private final ConcurrentMap<String, Entrada> porHash = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, String> porUsuario = new ConcurrentHashMap<>();
+
+    public TokensRestablecimiento(TokenRestablecimientoRepository repository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${cineflex.auth.reset.minutos:30}") long minutos,
+                                  @Value("${cineflex.auth.reset.persistir:false}") boolean persistir) {
+        this.repository = repository;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.duracion = Duration.ofMinutes(minutos);
+        this.persistir = persistir;
+    }
+
+    /**
+     * Genera un token nuevo para el usuario e invalida el que tuviera.
+     */
+    public String emitir(Long usuarioId) {
+        byte[] bytes = new byte[32];
+        aleatorio.nextBytes(bytes);
+        String token = BASE64.encodeToString(bytes);
+        String hash = hash(token);
+        Entrada entrada = new Entrada(usuarioId, Instant.now().plus(duracion));
+        porUsuario.compute(usuarioId, (id, previo) -> {
+            if (previo != null) {
+                porHash.remove(previo);
+            }
+            porHash.put(hash, entrada);
+            return hash;
+        });
+        if (persistir) {
+            repository.deleteByUsuario(usuarioId);
+            repository.save(new TokenRestablecimiento(hash, usuarioId, entrada.expiraEn()));
+        }
+        return token;
+    }
+
+    /**
+     * Devuelve el usuario del token sin consumirlo, para poder rechazar uno inválido o vencido antes
+     * de calcular el hash de la contraseña nueva.
+     */
+    public Long validar(String token) {
+        String hash = hash(token);
+        Entrada entrada = porHash.get(hash);
+        if (entrada == null && persistir) {
+            // Emitido en otro nodo o antes de reiniciar
+            entrada = buscar(hash);
+        }
+        return vigente(entrada).usuarioId();
+    }
+
+    /**
+     * Consume el token y devuelve el usuario al que pertenece. Un token sólo sirve una vez. Debe
+     * llamarse dentro de la transacción que cambia la contraseña: si esa transacción se revierte,
+     * el token vuelve a valer (la fila por el propio rollback, la entrada en memoria al terminar).
+     */
+    public Long consumir(String token) {
+        String hash = hash(token);
+        Entrada entrada = porHash.remove(hash);
+        if (entrada != null) {
+            porUsuario.remove(entrada.usuarioId(), hash);
+            restaurarSiRevierte(hash, entrada);
+        }
+        if (persistir) {
+            if (entrada == null) {
+                entrada = buscar(hash);
+            }
+            if (entrada != null && repository.consumir(hash) == 0) {
+                // Otro nodo lo consumió primero
+                entrada = null;
+            }
+        }
+        return vigente(entrada).usuarioId();
+    }
+
+    private Entrada buscar(String hash) {
+        return repository.findById(hash)
+                .map(t -> new Entrada(t.getUsuarioId(), t.getExpiraEn()))
+                .orElse(null);
+    }
+
+    private static Entrada vigente(Entrada entrada) {
+        if (entrada == null) {
+            throw new NoSuchElementException("Token inválido");
+        }
+        if (Instant.now().isAfter(entrada.expiraEn())) {
+            throw new IllegalArgumentException("Token expirado");
+        }
+        return entrada;
+    }
+
+    private void restaurarSiRevierte(String hash, Entrada entrada) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED && porUsuario.putIfAbsent(entrada.usuarioId(), hash) == null) {
+                    // Sólo si mientras tanto no se emitió otro token para el usuario
+                    porHash.put(hash, entrada);
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${cineflex.auth.reset.barrido-ms:60000}",
+               initialDelayString = "${cineflex.auth.reset.barrido-ms:60000}")
+    public void purgar() {
+        Instant ahora = Instant.now();
+        porHash.entrySet().removeIf(e -> {
+            if (e.getValue().expiraEn().isBefore(ahora)) {
+                porUsuario.remove(e.getValue().usuarioId(), e.getKey());
+                return true;
+            }
+            return false;
+        });
+        if (persistir) {
+            try {
+                transaccion.executeWithoutResult(status -> repository.deleteVencidos(ahora));
+            } catch (DataAccessException e) {
+                log.warn("No se pudieron purgar los tokens de restablecimiento vencidos: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.proyecto.negocios.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Tokens de sesión firmados con HMAC-SHA256, con formato {@code base64url(datos).base64url(firma)}.
+ * Verificarlos es calcular un HMAC y comparar, sin consultar la base de datos ni BCrypt.
+ * <ul>
+ *   <li>Acceso: {@code a:<usuarioId>:<venceSegundos>}, de vida corta.</li>
+ *   <li>Refresco: {@code r:<usuarioId>:<venceSegundos>:<huellaPassword>}. La huella deriva del hash
+ *   de la contraseña, así que cambiarla invalida los tokens de refresco emitidos antes.</li>
+ * </ul>
+ */
+@Component
+public class TokensSesion {
+
+    public static final String TIPO = "Bearer";
+    private static final Logger log = LoggerFactory.getLogger(TokensSesion.class);
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_DECODER = Base64.getUrlDecoder();
+    private static final String ACCESO = "a";
+    private static final String REFRESCO = "r";
+
+    /** Datos de un token de refresco válido. */
+    public record Refresco(Long usuarioId, String huellaPassword) { }
+
+    private final Mac prototipo;
+    private final Duration duracionAcceso;
+    private final Duration duracionRefresco;
+
+    public TokensSesion(@Value("${cineflex.auth.secreto:}") String secreto,
+                        @Value("${cineflex.auth.secreto-obligatorio:false}") boolean secretoObligatorio,
+                        @Value("${cineflex.auth.acceso-minutos:15}") long accesoMinutos,
+                        @Value("${cineflex.auth.refresco-dias:7}") long refrescoDias) {
+        byte[] clave;
+        if (secreto == null || secreto.isBlank()) {
+            if (secretoObligatorio) {
+                throw new IllegalStateException("cineflex.auth.secreto es obligatorio (AUTH_SECRET): sin él "
+                        + "cada nodo firmaría con una clave aleatoria distinta");
+            }
+            clave = new byte[32];
+            new SecureRandom().nextBytes(clave);
+            log.warn("cineflex.auth.secreto no está configurado: se usa una clave aleatoria y los tokens "
+                    + "dejarán de valer al reiniciar y no servirán entre nodos");
+        } else {
+            clave = secreto.getBytes(StandardCharsets.UTF_8);
+            if (clave.length < 32) {
+                throw new IllegalStateException("cineflex.auth.secreto debe tener al menos 32 bytes");
+            }
+        }
+        try {
+            this.prototipo = Mac.getInstance("HmacSHA256");
+            this.prototipo.init(new SecretKeySpec(clave, "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 no disponible", e);
+        }
+        this.duracionAcceso = Duration.ofMinutes(accesoMinutos);
+        this.duracionRefresco = Duration.ofDays(refrescoDias);
+    }
+
+    public String emitirAcceso(Long usuarioId) {
+        return firmar(ACCESO + ":" + usuarioId + ":" + vence(duracionAcceso));
+    }
+
+    public String emitirRefresco(Long usuarioId, String passwordHash) {
+        return firmar(REFRESCO + ":" + usuarioId + ":" + vence(duracionRefresco) + ":" + huellaPassword(passwordHash));
+    }
+
+    public long segundosAcceso() {
+        return duracionAcceso.toSeconds();
+    }
+
+    /**
+     * Devuelve el usuario del token de acceso, o {@code null} si la firma no cuadra o venció.
+     */
+    public Long verificarAcceso(String token) {
+        String[] partes = datos(token);
+        if (partes == null || partes.length != 3 || !ACCESO.equals(partes[0]) || vencido(partes[2])) {
+            return null;
+        }
+        return Long.valueOf(partes[1]);
+    }
+
+    /**
+     * Devuelve los datos del token de refresco, o {@code null} si la firma no cuadra o venció.
+     * Quien lo use debe comprobar la huella contra la contraseña actual con {@link #huellaVigente}.
+     */
+    public Refresco verificarRefresco(String token) {
+        String[] partes = datos(token);
+        if (partes == null || partes.length != 4 || !REFRESCO.equals(partes[0]) || vencido(partes[2])) {
+            return null;
+        }
+        return new Refresco(Long.valueOf(partes[1]), partes[3]);
+    }
+
+    public boolean huellaVigente(Refresco refresco, String passwordHash) {
+        return MessageDigest.isEqual(refresco.huellaPassword().getBytes(StandardCharsets.US_ASCII),
+                huellaPassword(passwordHash).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String firmar(String datos) {
+        byte[] bytes = datos.getBytes(StandardCharsets.UTF_8);
+        return BASE64.encodeToString(bytes) + "." + BASE64.encodeToString(hmac(bytes));
+    }
+
+    private String[] datos(String token) {
+        if (token == null) {
+            return null;
+        }
+        int punto = token.indexOf('.');
+        if (punto <= 0 || punto != token.lastIndexOf('.')) {
+            return null;
+        }
+        try {
+            byte[] datos = BASE64_DECODER.decode(token.substring(0, punto));
+            byte[] firma = BASE64_DECODER.decode(token.substring(punto + 1));
+            if (!MessageDigest.isEqual(firma, hmac(datos))) {
+                return null;
+            }
+            String[] partes = new String(datos, StandardCharsets.UTF_8).split(":");
+            // La firma es nuestra, pero se valida igual por si cambió el formato entre versiones
+            Long.parseLong(partes[1]);
+            Long.parseLong(partes[2]);
+            return partes;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private String huellaPassword(String passwordHash) {
+        byte[] hmac = hmac(("p:" + passwordHash).getBytes(StandardCharsets.UTF_8));
+        return BASE64.encodeToString(Arrays.copyOf(hmac, 12));
+    }
+
+    private byte[] hmac(byte[] datos) {
+        try {
+            // Mac no es thread-safe; clonar el ya inicializado evita repetir la preparación de la clave
+            Mac mac = (Mac) prototipo.clone();
+            return mac.doFinal(datos);
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("El proveedor de HmacSHA256 no admite clonar", e);
+        }
+    }
+
+    private static long vence(Duration duracion) {
+        return Instant.now().plus(duracion).getEpochSecond();
+    }
+
+    private static boolean vencido(String venceSegundos) {
+        return Long.parseLong(venceSegundos) <= Instant.now().getEpochSecond();
+    }
+}
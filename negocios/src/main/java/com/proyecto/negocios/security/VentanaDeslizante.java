@@ -0,0 +1,111 @@
+package com.proyecto.negocios.security;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Contador de ventana deslizante aproximada: guarda sólo la cuenta de la ventana fija actual y
+ * la de la anterior, y estima la deslizante ponderando la anterior por la parte que todavía
+ * solapa. El estado es inmutable y se reemplaza con CAS, así que no hay bloqueos.
+ */
+final class VentanaDeslizante {
+
+    private record Estado(long ventana, int previo, int actual) { }
+
+    private final long duracionMs;
+    private final AtomicReference<Estado> estado;
+
+    VentanaDeslizante(long duracionMs, long ahoraMs) {
+        this.duracionMs = duracionMs;
+        this.estado = new AtomicReference<>(new Estado(ahoraMs / duracionMs, 0, 0));
+    }
+
+    /**
+     * Cuenta un intento sólo si la estimación todavía no llegó a {@code maximo}, en un único CAS, así
+     * que dos intentos simultáneos no pueden pasar los dos con el último lugar libre. Devuelve la
+     * ventana en la que se contó (para {@link #descontar}) o -1 si se rechazó.
+     */
+    long intentar(int maximo, long ahoraMs) {
+        long ventana = ahoraMs / duracionMs;
+        double pesoPrevio = 1 - fraccion(ahoraMs);
+        while (true) {
+            Estado actual = estado.get();
+            Estado avanzado = avanzar(actual, ventana);
+            if (avanzado.actual() + avanzado.previo() * pesoPrevio >= maximo) {
+                return -1;
+            }
+            Estado nuevo = new Estado(ventana, avanzado.previo(), avanzado.actual() + 1);
+            if (estado.compareAndSet(actual, nuevo)) {
+                return ventana;
+            }
+        }
+    }
+
+    /**
+     * Deshace un intento contado en {@code ventanaContada}; si esa ventana ya salió de las dos que se
+     * guardan, no queda nada que descontar.
+     */
+    void descontar(long ventanaContada, long ahoraMs) {
+        long ventana = ahoraMs / duracionMs;
+        while (true) {
+            Estado actual = estado.get();
+            Estado avanzado = avanzar(actual, ventana);
+            Estado nuevo;
+            if (ventanaContada == ventana && avanzado.actual() > 0) {
+                nuevo = new Estado(ventana, avanzado.previo(), avanzado.actual() - 1);
+            } else if (ventanaContada == ventana - 1 && avanzado.previo() > 0) {
+                nuevo = new Estado(ventana, avanzado.previo() - 1, avanzado.actual());
+            } else {
+                return;
+            }
+            if (estado.compareAndSet(actual, nuevo)) {
+                return;
+            }
+        }
+    }
+
+    double estimar(long ahoraMs) {
+        Estado e = avanzar(estado.get(), ahoraMs / duracionMs);
+        return e.actual() + e.previo() * (1 - fraccion(ahoraMs));
+    }
+
+    /**
+     * Milisegundos hasta que la estimación baje de {@code maximo}, suponiendo que no llegan más.
+     */
+    long esperaHastaBajarDe(int maximo, long ahoraMs) {
+        Estado e = avanzar(estado.get(), ahoraMs / duracionMs);
+        double f = fraccion(ahoraMs);
+        if (e.actual() < maximo) {
+            if (e.previo() == 0) {
+                return 0;
+            }
+            double objetivo = 1 - (double) (maximo - e.actual()) / e.previo();
+            return Math.max(0, (long) Math.ceil((objetivo - f) * duracionMs));
+        }
+        // Hay que esperar a la ventana siguiente y a que la actual, ya como previa, pese lo bastante poco
+        double objetivo = 1 - (double) maximo / e.actual();
+        return (long) Math.ceil((1 - f + objetivo) * duracionMs);
+    }
+
+    void reiniciar(long ahoraMs) {
+        estado.set(new Estado(ahoraMs / duracionMs, 0, 0));
+    }
+
+    boolean vacia(long ahoraMs) {
+        Estado e = avanzar(estado.get(), ahoraMs / duracionMs);
+        return e.actual() == 0 && e.previo() == 0;
+    }
+
+    private double fraccion(long ahoraMs) {
+        return (double) (ahoraMs % duracionMs) / duracionMs;
+    }
+
+    private static Estado avanzar(Estado e, long ventana) {
+        if (e.ventana() == ventana) {
+            return e;
+        }
+        if (e.ventana() == ventana - 1) {
+            return new Estado(ventana, e.actual(), 0);
+        }
+        return new Estado(ventana, 0, 0);
+    }
+}
@@ -2,12 +2,15 @@ package com.proyecto.negocios.service;
 
 import com.proyecto.negocios.dto.auth.ForgotPasswordRequest;
 import com.proyecto.negocios.dto.auth.LoginRequest;
+import com.proyecto.negocios.dto.auth.RefreshRequest;
 import com.proyecto.negocios.dto.auth.RegisterRequest;
 import com.proyecto.negocios.dto.auth.ResetPasswordRequest;
+import com.proyecto.negocios.dto.auth.SesionResponse;
 
 public interface AuthService {
     Long register(RegisterRequest request);
-    Long login(LoginRequest request);
+    SesionResponse login(LoginRequest request, String ip);
+    SesionResponse refresh(RefreshRequest request);
     String forgotPassword(ForgotPasswordRequest request);
     void resetPassword(ResetPasswordRequest request);
 }
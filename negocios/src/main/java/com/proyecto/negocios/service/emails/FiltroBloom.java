@@ -0,0 +1,77 @@
+package com.proyecto.negocios.service.emails;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom sin bloqueos sobre un AtomicLongArray. Sólo se añaden elementos, así que marcar
+ * un bit es un OR atómico y consultar puede hacerse en paralelo con las altas. Un "no" es seguro;
+ * un "sí" puede ser falso con la probabilidad indicada al dimensionarlo.
+ */
+final class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final long numeroBits;
+    private final int numeroHashes;
+
+    FiltroBloom(long esperados, double probabilidadFalsos) {
+        long n = Math.max(1, esperados);
+        long m = (long) Math.ceil(-n * Math.log(probabilidadFalsos) / (Math.log(2) * Math.log(2)));
+        this.numeroBits = Math.max(64, (m + 63) / 64 * 64);
+        this.numeroHashes = Math.max(1, (int) Math.round((double) numeroBits / n * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (numeroBits / 64));
+    }
+
+    void agregar(String valor) {
+        long h1 = hash(valor);
+        long h2 = mezclar(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < numeroHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numeroBits);
+            int palabra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long actual = bits.get(palabra);
+            while ((actual & mascara) == 0 && !bits.weakCompareAndSetVolatile(palabra, actual, actual | mascara)) {
+                actual = bits.get(palabra);
+            }
+        }
+    }
+
+    boolean puedeContener(String valor) {
+        long h1 = hash(valor);
+        long h2 = mezclar(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < numeroHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numeroBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long numeroBits() {
+        return numeroBits;
+    }
+
+    int numeroHashes() {
+        return numeroHashes;
+    }
+
+    // FNV-1a de 64 bits sobre UTF-8 con el finalizador de MurmurHash3 para repartir bien los bits
+    private static long hash(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return mezclar(h);
+    }
+
+    private static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
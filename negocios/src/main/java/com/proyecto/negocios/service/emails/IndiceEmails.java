@@ -0,0 +1,98 @@
+package com.proyecto.negocios.service.emails;
+
+import com.proyecto.negocios.repository.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Emails registrados, normalizados (sin espacios y en minúsculas). Delante de la consulta a
+ * usuarios hay un filtro de Bloom cargado al arrancar y actualizado con cada alta, así que la
+ * mayoría de los emails nuevos se descartan sin ir a la base de datos. El filtro nunca niega un
+ * email que existe en este nodo; las altas hechas en otros nodos las detecta el índice único
+ * sobre lower(email), que es quien decide en último término.
+ */
+@Component
+public class IndiceEmails {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceEmails.class);
+
+    private final UsuarioRepository usuarioRepository;
+    private final TransactionTemplate transaccion;
+    private final FiltroBloom filtro;
+    private final Counter ausentes;
+    private final Counter consultados;
+    private volatile boolean cargado;
+
+    public IndiceEmails(UsuarioRepository usuarioRepository, PlatformTransactionManager transactionManager,
+                        MeterRegistry registro,
+                        @Value("${cineflex.usuarios.bloom.esperados:1000000}") long esperados,
+                        @Value("${cineflex.usuarios.bloom.falsos-positivos:0.01}") double falsosPositivos) {
+        this.usuarioRepository = usuarioRepository;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccion.setReadOnly(true);
+        this.filtro = new FiltroBloom(esperados, falsosPositivos);
+        this.ausentes = consultas(registro, "ausente");
+        this.consultados = consultas(registro, "consulta");
+    }
+
+    public static String normalizar(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargar() {
+        try {
+            AtomicLong total = new AtomicLong();
+            transaccion.executeWithoutResult(status -> {
+                try (Stream<String> emails = usuarioRepository.streamEmails()) {
+                    emails.forEach(email -> {
+                        filtro.agregar(normalizar(email));
+                        total.incrementAndGet();
+                    });
+                }
+            });
+            // Las altas concurrentes con la carga ya marcaron sus bits, así que a partir de aquí un "no" es fiable
+            cargado = true;
+            log.info("Filtro de emails cargado: {} usuarios en {} bits con {} hashes",
+                    total.get(), filtro.numeroBits(), filtro.numeroHashes());
+        } catch (RuntimeException e) {
+            log.warn("No se pudo cargar el filtro de emails, se consultará siempre la base de datos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Indica si el email (ya normalizado) pertenece a un usuario. Sólo consulta la base de datos
+     * cuando el filtro no puede descartarlo.
+     */
+    public boolean registrado(String email) {
+        if (cargado && !filtro.puedeContener(email)) {
+            ausentes.increment();
+            return false;
+        }
+        consultados.increment();
+        return usuarioRepository.existsByEmail(email);
+    }
+
+    public void agregar(String email) {
+        filtro.agregar(email);
+    }
+
+    private static Counter consultas(MeterRegistry registro, String resultado) {
+        return Counter.builder("cineflex.usuarios.emails.comprobaciones")
+                .description("Comprobaciones de email registrado, según las resolvió el filtro o la base de datos")
+                .tag("resultado", resultado)
+                .register(registro);
+    }
+}
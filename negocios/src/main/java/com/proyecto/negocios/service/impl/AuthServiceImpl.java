@@ -3,18 +3,26 @@ package com.proyecto.negocios.service.impl;
 import com.proyecto.negocios.domain.Usuario;
 import com.proyecto.negocios.dto.auth.ForgotPasswordRequest;
 import com.proyecto.negocios.dto.auth.LoginRequest;
+import com.proyecto.negocios.dto.auth.RefreshRequest;
 import com.proyecto.negocios.dto.auth.RegisterRequest;
 import com.proyecto.negocios.dto.auth.ResetPasswordRequest;
+import com.proyecto.negocios.dto.auth.SesionResponse;
 import com.proyecto.negocios.repository.UsuarioRepository;
+import com.proyecto.negocios.security.FallosLogin;
+import com.proyecto.negocios.security.TokensRestablecimiento;
+import com.proyecto.negocios.security.TokensSesion;
 import com.proyecto.negocios.service.AuthService;
+import com.proyecto.negocios.service.emails.IndiceEmails;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.NoSuchElementException;
-import java.util.UUID;
 
 @Service
 @Transactional
@@ -22,59 +30,131 @@ public class AuthServiceImpl implements AuthService {
 
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokensSesion tokensSesion;
+    private final FallosLogin fallosLogin;
+    private final TokensRestablecimiento tokensRestablecimiento;
+    private final IndiceEmails indiceEmails;
+    private final TransactionTemplate transaccion;
 
-    public AuthServiceImpl(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder) {
+    public AuthServiceImpl(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder,
+                           TokensSesion tokensSesion, FallosLogin fallosLogin,
+                           TokensRestablecimiento tokensRestablecimiento, IndiceEmails indiceEmails,
+                           PlatformTransactionManager transactionManager) {
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
+        this.tokensSesion = tokensSesion;
+        this.fallosLogin = fallosLogin;
+        this.tokensRestablecimiento = tokensRestablecimiento;
+        this.indiceEmails = indiceEmails;
+        this.transaccion = new TransactionTemplate(transactionManager);
     }
 
+    // Sin transacción, como login: BCrypt no retiene conexión y el alta se confirma sola en saveAndFlush
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Long register(RegisterRequest request) {
-        if (usuarioRepository.existsByEmail(request.getEmail())) {
+        String email = IndiceEmails.normalizar(request.getEmail());
+        if (indiceEmails.registrado(email)) {
             throw new IllegalArgumentException("El email ya está registrado");
         }
         Usuario u = new Usuario();
-        u.setEmail(request.getEmail());
+        u.setEmail(email);
         u.setNombre(request.getNombre());
         u.setPasswordHash(passwordEncoder.encode(request.getPassword()));
-        Usuario saved = usuarioRepository.save(u);
+        Usuario saved;
+        try {
+            saved = usuarioRepository.saveAndFlush(u);
+        } catch (DataIntegrityViolationException e) {
+            // Alta simultánea o hecha en otro nodo: el índice único tiene la última palabra
+            indiceEmails.agregar(email);
+            throw new IllegalArgumentException("El email ya está registrado");
+        }
+        indiceEmails.agregar(email);
         return saved.getId();
     }
 
+    // Sin transacción: un intento bloqueado no toma conexión y BCrypt no retiene ninguna mientras calcula
     @Override
-    public Long login(LoginRequest request) {
-        Usuario u = usuarioRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new NoSuchElementException("Usuario no encontrado"));
-        if (!passwordEncoder.matches(request.getPassword(), u.getPasswordHash())) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SesionResponse login(LoginRequest request, String ip) {
+        String email = IndiceEmails.normalizar(request.getEmail());
+        // El intento se cuenta antes de consultar y de BCrypt; si las credenciales son válidas se descuenta
+        FallosLogin.Intento intento = fallosLogin.intentar(email, ip);
+        Usuario u;
+        boolean valida;
+        try {
+            u = usuarioRepository.findByEmail(email).orElse(null);
+            valida = u != null && passwordEncoder.matches(request.getPassword(), u.getPasswordHash());
+        } catch (RuntimeException e) {
+            fallosLogin.descontar(intento);
+            throw e;
+        }
+        if (u == null) {
+            fallosLogin.registrarFallo();
+            throw new NoSuchElementException("Usuario no encontrado");
+        }
+        if (!valida) {
+            fallosLogin.registrarFallo();
             throw new IllegalArgumentException("Credenciales inválidas");
         }
-        return u.getId();
+        fallosLogin.registrarExito(intento);
+        // Después de comprobar la contraseña, para no revelar el estado de la cuenta a quien no la conoce
+        if (!u.isEnabled()) {
+            throw new BadCredentialsException("Usuario deshabilitado");
+        }
+        // Hash con un coste menor al calibrado: se rehace ahora que se conoce la contraseña
+        if (passwordEncoder.upgradeEncoding(u.getPasswordHash())) {
+            u.setPasswordHash(passwordEncoder.encode(request.getPassword()));
+            u = usuarioRepository.save(u);
+        }
+        return sesion(u);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SesionResponse refresh(RefreshRequest request) {
+        TokensSesion.Refresco refresco = tokensSesion.verificarRefresco(request.getRefreshToken());
+        if (refresco == null) {
+            throw new BadCredentialsException("Refresh token inválido o vencido");
+        }
+        // Sólo aquí se consulta el usuario: si se deshabilitó o cambió la contraseña, el refresco deja de valer
+        Usuario u = usuarioRepository.findById(refresco.usuarioId())
+                .filter(Usuario::isEnabled)
+                .filter(usuario -> tokensSesion.huellaVigente(refresco, usuario.getPasswordHash()))
+                .orElseThrow(() -> new BadCredentialsException("Refresh token inválido o vencido"));
+        return sesion(u);
+    }
+
+    private SesionResponse sesion(Usuario u) {
+        return new SesionResponse(u.getId(), tokensSesion.emitirAcceso(u.getId()),
+                tokensSesion.emitirRefresco(u.getId(), u.getPasswordHash()), TokensSesion.TIPO,
+                tokensSesion.segundosAcceso());
     }
 
     @Override
     public String forgotPassword(ForgotPasswordRequest request) {
-        Usuario u = usuarioRepository.findByEmail(request.getEmail())
+        Usuario u = usuarioRepository.findByEmail(IndiceEmails.normalizar(request.getEmail()))
                 .orElseThrow(() -> new NoSuchElementException("Usuario no encontrado"));
-        String token = UUID.randomUUID().toString();
-        u.setResetToken(token);
-        u.setResetTokenExp(Instant.now().plus(30, ChronoUnit.MINUTES));
-        usuarioRepository.save(u);
+        String token = tokensRestablecimiento.emitir(u.getId());
         // En producción, enviar email. Para pruebas, devolvemos el token.
         return token;
     }
 
+    // Sin transacción mientras se valida y se espera a BCrypt: sólo el consumo del token y la
+    // actualización, ya con el hash calculado, toman una conexión en una transacción corta
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void resetPassword(ResetPasswordRequest request) {
-        Usuario u = usuarioRepository.findByResetToken(request.getToken())
-                .orElseThrow(() -> new NoSuchElementException("Token inválido"));
-        if (u.getResetTokenExp() == null || Instant.now().isAfter(u.getResetTokenExp())) {
-            throw new IllegalArgumentException("Token expirado");
-        }
-        u.setPasswordHash(passwordEncoder.encode(request.getNewPassword()));
-        u.setResetToken(null);
-        u.setResetTokenExp(null);
-        usuarioRepository.save(u);
+        // El token se valida en memoria: uno inválido o vencido no llega a consultar usuarios ni a BCrypt
+        tokensRestablecimiento.validar(request.getToken());
+        String passwordHash = passwordEncoder.encode(request.getNewPassword());
+        // Se consume recién con el hash calculado: si BCrypt rechaza la tarea (503) el token sigue valiendo
+        transaccion.executeWithoutResult(status -> {
+            Long usuarioId = tokensRestablecimiento.consumir(request.getToken());
+            Usuario u = usuarioRepository.findById(usuarioId)
+                    .orElseThrow(() -> new NoSuchElementException("Token inválido"));
+            u.setPasswordHash(passwordHash);
+            usuarioRepository.save(u);
+        });
     }
 }
-
-
@@ -4,6 +4,7 @@ import com.proyecto.negocios.dto.UsuarioDTO;
 import com.proyecto.negocios.mapper.UsuarioMapper;
 import com.proyecto.negocios.repository.UsuarioRepository;
 import com.proyecto.negocios.service.UsuarioService;
+import com.proyecto.negocios.service.emails.IndiceEmails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,9 +17,11 @@ import java.util.stream.Collectors;
 public class UsuarioServiceImpl implements UsuarioService {
 
     private final UsuarioRepository usuarioRepository;
+    private final IndiceEmails indiceEmails;
 
-    public UsuarioServiceImpl(UsuarioRepository usuarioRepository) {
+    public UsuarioServiceImpl(UsuarioRepository usuarioRepository, IndiceEmails indiceEmails) {
         this.usuarioRepository = usuarioRepository;
+        this.indiceEmails = indiceEmails;
     }
 
     @Override
@@ -41,10 +44,13 @@ public class UsuarioServiceImpl implements UsuarioService {
     public UsuarioDTO actualizar(Long id, UsuarioDTO dto) {
         return usuarioRepository.findById(id)
                 .map(u -> {
+                    String email = IndiceEmails.normalizar(dto.getEmail());
                     u.setNombre(dto.getNombre());
-                    u.setEmail(dto.getEmail());
+                    u.setEmail(email);
                     u.setEnabled(dto.isEnabled());
-                    return UsuarioMapper.toDTO(usuarioRepository.save(u));
+                    UsuarioDTO actualizado = UsuarioMapper.toDTO(usuarioRepository.save(u));
+                    indiceEmails.agregar(email);
+                    return actualizado;
                 })
                 .orElseThrow(() -> new NoSuchElementException("Usuario no encontrado"));
     }
@@ -2,9 +2,12 @@ package com.proyecto.negocios.web;
 
 import com.proyecto.negocios.dto.auth.ForgotPasswordRequest;
 import com.proyecto.negocios.dto.auth.LoginRequest;
+import com.proyecto.negocios.dto.auth.RefreshRequest;
 import com.proyecto.negocios.dto.auth.RegisterRequest;
 import com.proyecto.negocios.dto.auth.ResetPasswordRequest;
+import com.proyecto.negocios.dto.auth.SesionResponse;
 import com.proyecto.negocios.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -32,9 +35,13 @@ public class AuthController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<Map<String, Object>> login(@Valid @RequestBody LoginRequest request) {
-        Long userId = authService.login(request);
-        return ResponseEntity.ok(Map.of("userId", userId));
+    public ResponseEntity<SesionResponse> login(@Valid @RequestBody LoginRequest request, HttpServletRequest http) {
+        return ResponseEntity.ok(authService.login(request, http.getRemoteAddr()));
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<SesionResponse> refresh(@Valid @RequestBody RefreshRequest request) {
+        return ResponseEntity.ok(authService.refresh(request));
     }
 
     @PostMapping("/forgot-password")
@@ -1,7 +1,7 @@
 package com.proyecto.negocios.web;
 
 import com.cineflex.model.Reserva;
-import com.cineflex.repository.ReservaRepository;
+import com.cineflex.service.estadisticas.EstadisticasReservas;
 import com.proyecto.negocios.repository.ProductoRepository;
 import com.proyecto.negocios.repository.UsuarioRepository;
 import org.springframework.http.ResponseEntity;
@@ -10,7 +10,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -20,14 +20,14 @@ public class HomeController {
 
     private final ProductoRepository productoRepository;
     private final UsuarioRepository usuarioRepository;
-    private final ReservaRepository reservaRepository;
+    private final EstadisticasReservas estadisticasReservas;
 
     public HomeController(ProductoRepository productoRepository, 
                          UsuarioRepository usuarioRepository,
-                         ReservaRepository reservaRepository) {
+                         EstadisticasReservas estadisticasReservas) {
         this.productoRepository = productoRepository;
         this.usuarioRepository = usuarioRepository;
-        this.reservaRepository = reservaRepository;
+        this.estadisticasReservas = estadisticasReservas;
     }
 
     @GetMapping("/")
@@ -42,6 +42,7 @@ public class HomeController {
                         "peliculas", "/api/peliculas/**",
                         "funciones", "/api/funciones/**",
                         "reservas", "/api/reservas/**",
+                        "cartelera", "/api/cartelera",
                         "h2-console", "/h2-console"
                 )
         ));
@@ -53,16 +54,16 @@ public class HomeController {
             long totalProductos = productoRepository.count();
             long totalUsuarios = usuarioRepository.count();
             
-            // Contar reservas activas (CREADA o PAGADA) usando stream
-            long reservasActivas = reservaRepository.findAll().stream()
-                    .filter(r -> r.getEstado() == Reserva.Estado.CREADA || r.getEstado() == Reserva.Estado.PAGADA)
-                    .count();
-            
-            return ResponseEntity.ok(Map.of(
-                    "totalProductos", totalProductos,
-                    "totalUsuarios", totalUsuarios,
-                    "reservasActivas", reservasActivas
-            ));
+            // Las reservas se leen de los contadores en memoria (CREADA + PAGADA = activas)
+            Map<Reserva.Estado, Long> porEstado = estadisticasReservas.porEstado();
+            Map<String, Long> stats = new LinkedHashMap<>();
+            stats.put("totalProductos", totalProductos);
+            stats.put("totalUsuarios", totalUsuarios);
+            stats.put("reservasActivas", estadisticasReservas.activas());
+            stats.put("reservasCreadas", porEstado.get(Reserva.Estado.CREADA));
+            stats.put("reservasPagadas", porEstado.get(Reserva.Estado.PAGADA));
+            stats.put("reservasCanceladas", porEstado.get(Reserva.Estado.CANCELADA));
+            return ResponseEntity.ok(stats);
         } catch (Exception e) {
             // En caso de error, retornar valores por defecto
             return ResponseEntity.ok(Map.of(
@@ -0,0 +1,22 @@
+-- Reclamos de asientos: un asiento de una función sólo puede pertenecer a una reserva activa.
+-- El esquema se valida con spring.jpa.hibernate.ddl-auto=validate, así que este script
+-- debe aplicarse a mano (psql) antes de desplegar la versión que usa la tabla.
+
+CREATE TABLE IF NOT EXISTS reclamo_asiento (
+    funcion_id BIGINT      NOT NULL REFERENCES funcion (id),
+    asiento    VARCHAR(4)  NOT NULL,
+    reserva_id BIGINT      NOT NULL REFERENCES reserva (id),
+    PRIMARY KEY (funcion_id, asiento)
+);
+
+CREATE INDEX IF NOT EXISTS idx_reclamo_asiento_reserva ON reclamo_asiento (reserva_id);
+
+-- Carga inicial desde las reservas activas. Si ya existían asientos duplicados se conserva
+-- el reclamo de la reserva más antigua.
+INSERT INTO reclamo_asiento (funcion_id, asiento, reserva_id)
+SELECT r.funcion_id, ra.asientos, r.id
+FROM reserva r
+JOIN reserva_asientos ra ON ra.reserva_id = r.id
+WHERE r.estado IN ('CREADA', 'PAGADA')
+ORDER BY r.id
+ON CONFLICT (funcion_id, asiento) DO NOTHING;
@@ -0,0 +1,48 @@
+-- Asientos de la reserva como máscara de bits (ver AsientosConverter) en lugar de la tabla
+-- reserva_asientos con una fila por asiento. Aplicar a mano (psql) antes de desplegar la
+-- versión que lee reserva.asientos_mask; el script es idempotente.
+--
+-- Ordinal de un asiento: (letra - 'A') * 10 + (número - 1). El bit n de la máscara es el bit
+-- n % 8 del byte n / 8, que es justo la numeración de set_bit sobre bytea en PostgreSQL.
+
+ALTER TABLE reserva ADD COLUMN IF NOT EXISTS asientos_mask BYTEA;
+
+DO $$
+DECLARE
+    fila     RECORD;
+    mascara  BYTEA;
+    etiqueta TEXT;
+    ordinal  INT;
+BEGIN
+    FOR fila IN
+        SELECT ra.reserva_id, array_agg(ra.asientos) AS etiquetas
+        FROM reserva_asientos ra
+        JOIN reserva r ON r.id = ra.reserva_id
+        WHERE r.asientos_mask IS NULL
+        GROUP BY ra.reserva_id
+    LOOP
+        mascara := ''::bytea;
+        FOREACH etiqueta IN ARRAY fila.etiquetas LOOP
+            IF etiqueta !~ '^[A-Z]([1-9]|10)$' THEN
+                RAISE EXCEPTION 'Reserva %: asiento inválido %', fila.reserva_id, etiqueta;
+            END IF;
+            ordinal := (ascii(etiqueta) - ascii('A')) * 10 + substr(etiqueta, 2)::int - 1;
+            IF length(mascara) <= ordinal / 8 THEN
+                mascara := mascara || decode(repeat('00', ordinal / 8 + 1 - length(mascara)), 'hex');
+            END IF;
+            mascara := set_bit(mascara, ordinal, 1);
+        END LOOP;
+        UPDATE reserva SET asientos_mask = mascara WHERE id = fila.reserva_id;
+    END LOOP;
+END $$;
+
+-- Reservas sin asientos
+UPDATE reserva SET asientos_mask = ''::bytea WHERE asientos_mask IS NULL;
+
+-- Comprobación antes de borrar la tabla anterior: debe devolver 0
+-- SELECT count(*) FROM reserva r
+-- WHERE (SELECT count(*) FROM reserva_asientos ra WHERE ra.reserva_id = r.id)
+--    <> (SELECT count(*) FROM generate_series(0, length(r.asientos_mask) * 8 - 1) b WHERE get_bit(r.asientos_mask, b) = 1);
+
+-- Una vez verificado (y sin versiones anteriores de la aplicación en marcha):
+-- DROP TABLE reserva_asientos;
@@ -0,0 +1,9 @@
+-- Índices del listado paginado de reservas (GET /api/reservas con cursor): orden
+-- (created_at desc, id desc), con y sin filtro por función. Aplicar a mano (psql);
+-- CONCURRENTLY evita bloquear las escrituras y no puede ir dentro de una transacción.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_reserva_created_at_id
+    ON reserva (created_at DESC, id DESC);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_reserva_funcion_created_at_id
+    ON reserva (funcion_id, created_at DESC, id DESC);
@@ -0,0 +1,18 @@
+-- Funcion pasa de IDENTITY a una secuencia con incremento 50 (optimizador pooled de Hibernate),
+-- para que las altas en lote (POST /api/funciones/schedule) se inserten con JDBC batching.
+-- Aplicar a mano (psql) antes de desplegar: con ddl-auto=validate la aplicación no arranca sin la
+-- secuencia, y el incremento tiene que coincidir con allocationSize.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS funcion_seq INCREMENT BY 50;
+
+-- Hibernate toma el valor de la secuencia como extremo superior del bloque [valor - 49, valor],
+-- así que el primer valor tiene que dejar todo el bloque por encima del id máximo actual.
+SELECT setval('funcion_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM funcion), false);
+
+-- El id ya no lo genera la columna
+ALTER TABLE funcion ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE funcion ALTER COLUMN id DROP DEFAULT;
+
+COMMIT;
@@ -0,0 +1,28 @@
+-- Resto de entidades de IDENTITY a secuencias con incremento 50 (optimizador pooled de Hibernate),
+-- igual que funcion en 004: con IDENTITY cada INSERT se ejecuta al momento para conocer el id y
+-- hibernate.jdbc.batch_size no tiene efecto. Aplicar a mano (psql) antes de desplegar; con
+-- ddl-auto=validate la aplicación no arranca sin las secuencias.
+
+BEGIN;
+
+CREATE SEQUENCE IF NOT EXISTS pelicula_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS reserva_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS productos_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS usuarios_seq INCREMENT BY 50;
+
+-- El valor de la secuencia es el extremo superior del bloque [valor - 49, valor]
+SELECT setval('pelicula_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM pelicula), false);
+SELECT setval('reserva_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM reserva), false);
+SELECT setval('productos_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM productos), false);
+SELECT setval('usuarios_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM usuarios), false);
+
+ALTER TABLE pelicula ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE pelicula ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE reserva ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE reserva ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE productos ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE productos ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE usuarios ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE usuarios ALTER COLUMN id DROP DEFAULT;
+
+COMMIT;
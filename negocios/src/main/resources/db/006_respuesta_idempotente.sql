@@ -0,0 +1,16 @@
+-- Respuestas guardadas de las operaciones con cabecera Idempotency-Key (creación y pago de
+-- reservas). La clave primaria es "operación + ámbito + clave": insertar la fila EN_CURSO es lo que decide
+-- qué nodo ejecuta la solicitud. Las filas vencidas se borran periódicamente desde la aplicación.
+-- Aplicar a mano (psql) antes de desplegar; con ddl-auto=validate la aplicación no arranca sin la tabla.
+
+CREATE TABLE IF NOT EXISTS respuesta_idempotente (
+    clave      VARCHAR(300)  PRIMARY KEY,
+    huella     VARCHAR(64)   NOT NULL,
+    estado     VARCHAR(16)   NOT NULL,
+    status     INTEGER,
+    cuerpo     VARCHAR(8000),
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    expira_en  TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_respuesta_idempotente_expira ON respuesta_idempotente (expira_en);
@@ -0,0 +1,13 @@
+-- Tokens de restablecimiento de contraseña fuera de la tabla usuarios. Sólo se guarda el SHA-256
+-- del token (clave primaria), así que validarlo es un acceso por índice y no un recorrido de usuarios.
+-- La tabla sólo se usa con cineflex.auth.reset.persistir=true, pero con ddl-auto=validate tiene que
+-- existir igual: aplicar a mano (psql) antes de desplegar.
+
+CREATE TABLE IF NOT EXISTS tokens_restablecimiento (
+    hash       VARCHAR(64) PRIMARY KEY,
+    usuario_id BIGINT      NOT NULL,
+    expira_en  TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_tokens_restablecimiento_usuario ON tokens_restablecimiento (usuario_id);
+CREATE INDEX IF NOT EXISTS idx_tokens_restablecimiento_expira ON tokens_restablecimiento (expira_en);
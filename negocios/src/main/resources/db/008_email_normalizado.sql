@@ -0,0 +1,10 @@
+-- Emails de usuarios normalizados (sin espacios y en minúsculas) con un índice único sobre
+-- lower(email): dos altas que sólo difieren en mayúsculas no pueden coexistir aunque lleguen a la
+-- vez o a nodos distintos. El filtro de Bloom de la aplicación evita la mayoría de las consultas
+-- previas; este índice es quien decide en último término.
+-- Aplicar a mano (psql) antes de desplegar. Si la actualización falla por duplicados, revisarlos con:
+--   SELECT LOWER(TRIM(email)), COUNT(*) FROM usuarios GROUP BY 1 HAVING COUNT(*) > 1;
+
+UPDATE usuarios SET email = LOWER(TRIM(email)) WHERE email <> LOWER(TRIM(email));
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_usuarios_email_normalizado ON usuarios (LOWER(email));
@@ -0,0 +1,5 @@
+-- Versión para el bloqueo optimista de reservas: un pago o una edición que se cruza con el
+-- barrido de retenciones vencidas falla (409) en vez de sobrescribir la cancelación.
+-- Aplicar a mano (psql) antes de desplegar; con ddl-auto=validate la aplicación no arranca sin la columna.
+
+ALTER TABLE reserva ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
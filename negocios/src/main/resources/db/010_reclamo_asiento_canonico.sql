@@ -0,0 +1,25 @@
+-- Etiquetas de asiento canónicas en reclamo_asiento: "A01" y "A1" son el mismo asiento, pero la
+-- clave (funcion_id, asiento) las trataba como distintas. Desde esta versión sólo se acepta la
+-- forma sin ceros a la izquierda; este script reescribe los reclamos anteriores. Aplicar a mano (psql).
+
+-- Si un asiento quedó reclamado con las dos grafías se conserva el reclamo de la reserva más antigua
+DELETE FROM reclamo_asiento c
+WHERE c.asiento ~ '^[A-Z]0'
+  AND EXISTS (
+      SELECT 1 FROM reclamo_asiento o
+      WHERE o.funcion_id = c.funcion_id
+        AND o.asiento = substr(c.asiento, 1, 1) || ltrim(substr(c.asiento, 2), '0')
+        AND o.reserva_id < c.reserva_id);
+
+DELETE FROM reclamo_asiento c
+WHERE c.asiento !~ '^[A-Z]0'
+  AND EXISTS (
+      SELECT 1 FROM reclamo_asiento o
+      WHERE o.funcion_id = c.funcion_id
+        AND o.asiento ~ '^[A-Z]0'
+        AND substr(o.asiento, 1, 1) || ltrim(substr(o.asiento, 2), '0') = c.asiento
+        AND o.reserva_id < c.reserva_id);
+
+UPDATE reclamo_asiento
+SET asiento = substr(asiento, 1, 1) || ltrim(substr(asiento, 2), '0')
+WHERE asiento ~ '^[A-Z]0';
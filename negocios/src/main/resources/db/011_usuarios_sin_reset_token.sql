@@ -0,0 +1,6 @@
+-- Posterior al despliegue de 007: borra las columnas de restablecimiento que quedaron en usuarios.
+-- Ya no se leen ni se escriben, pero la versión previa sí las usa, así que aplicar a mano (psql)
+-- sólo cuando no quede ningún nodo con esa versión. Los tokens pendientes en ellas dejan de valer.
+
+ALTER TABLE usuarios DROP COLUMN IF EXISTS reset_token;
+ALTER TABLE usuarios DROP COLUMN IF EXISTS reset_token_exp;
@@ -0,0 +1,6 @@
+-- El cuerpo de las respuestas idempotentes pasa a TEXT: con VARCHAR(8000) las respuestas más
+-- largas no se guardaban y el reintento volvía a ejecutar la operación. Las claves incluyen ahora
+-- el ámbito del cliente, así que las filas anteriores ya no coinciden con ninguna y vencen solas.
+-- Aplicar a mano (psql) antes de desplegar.
+
+ALTER TABLE respuesta_idempotente ALTER COLUMN cuerpo TYPE TEXT;
@@ -0,0 +1,128 @@
+package com.cineflex.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compara el alta masiva de reservas con ids IDENTITY (un INSERT inmediato por persist, sin lotes)
+ * y con una secuencia pooled (ids reservados de a 50 e INSERT en lotes de hibernate.jdbc.batch_size).
+ * No sigue el patrón *Test, así que el build normal no lo ejecuta:
+ * {@code mvn test -Dtest=BenchmarkInserciones}. Usa su propia base H2 en memoria; para medir contra
+ * un PostgreSQL local basta con -Dcineflex.benchmark.url, .usuario y .password. Cada ronda se revierte.
+ */
+class BenchmarkInserciones {
+
+    private static final Logger log = LoggerFactory.getLogger(BenchmarkInserciones.class);
+    private static final int LOTE = 50;
+    private static final int FILAS = Integer.getInteger("cineflex.benchmark.filas", 20_000);
+    private static final int RONDAS = Integer.getInteger("cineflex.benchmark.rondas", 3);
+
+    @Entity(name = "ReservaConIdentidad")
+    @Table(name = "benchmark_identidad")
+    static class ConIdentidad {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Long id;
+        String nombreCliente;
+        Integer cantidad;
+        Instant createdAt;
+
+        ConIdentidad() { }
+
+        ConIdentidad(int i) {
+            this.nombreCliente = "benchmark-" + i;
+            this.cantidad = 1;
+            this.createdAt = Instant.now();
+        }
+    }
+
+    @Entity(name = "ReservaConSecuencia")
+    @Table(name = "benchmark_secuencia")
+    static class ConSecuencia {
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "benchmark_seq")
+        @SequenceGenerator(name = "benchmark_seq", sequenceName = "benchmark_seq", allocationSize = LOTE)
+        Long id;
+        String nombreCliente;
+        Integer cantidad;
+        Instant createdAt;
+
+        ConSecuencia() { }
+
+        ConSecuencia(int i) {
+            this.nombreCliente = "benchmark-" + i;
+            this.cantidad = 1;
+            this.createdAt = Instant.now();
+        }
+    }
+
+    @Test
+    void identidadContraSecuencia() {
+        try (SessionFactory sesiones = configuracion().buildSessionFactory()) {
+            // Una ronda de calentamiento por estrategia antes de medir
+            insertar(sesiones, ConIdentidad::new, ConIdentidad.class);
+            insertar(sesiones, ConSecuencia::new, ConSecuencia.class);
+            for (int ronda = 1; ronda <= RONDAS; ronda++) {
+                reportar("IDENTITY", ronda, insertar(sesiones, ConIdentidad::new, ConIdentidad.class));
+                reportar("SEQUENCE pooled (" + LOTE + ")", ronda, insertar(sesiones, ConSecuencia::new, ConSecuencia.class));
+            }
+        }
+    }
+
+    private static Configuration configuracion() {
+        return new Configuration()
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL,
+                        System.getProperty("cineflex.benchmark.url", "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1"))
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, System.getProperty("cineflex.benchmark.usuario", "sa"))
+                .setProperty(AvailableSettings.JAKARTA_JDBC_PASSWORD, System.getProperty("cineflex.benchmark.password", ""))
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(LOTE))
+                .setProperty(AvailableSettings.ORDER_INSERTS, "true")
+                .addAnnotatedClass(ConIdentidad.class)
+                .addAnnotatedClass(ConSecuencia.class);
+    }
+
+    private static long insertar(SessionFactory sesiones, IntFunction<Object> nueva, Class<?> tipo) {
+        try (Session sesion = sesiones.openSession()) {
+            sesion.beginTransaction();
+            long inicio = System.nanoTime();
+            for (int i = 0; i < FILAS; i++) {
+                sesion.persist(nueva.apply(i));
+                // Se vacía el contexto cada lote con ambas estrategias para no medir su crecimiento
+                if ((i + 1) % LOTE == 0) {
+                    sesion.flush();
+                    sesion.clear();
+                }
+            }
+            sesion.flush();
+            long nanos = System.nanoTime() - inicio;
+            long filas = sesion.createQuery("select count(*) from " + sesiones.getMetamodel().entity(tipo).getName(), Long.class)
+                    .getSingleResult();
+            assertEquals(FILAS, filas);
+            sesion.getTransaction().rollback();
+            return nanos;
+        }
+    }
+
+    private static void reportar(String estrategia, int ronda, long nanos) {
+        double segundos = nanos / 1_000_000_000.0;
+        log.info("Benchmark inserciones [{}] ronda {}: {} reservas en {} ms ({} filas/s)",
+                estrategia, ronda, FILAS, Math.round(segundos * 1000), Math.round(FILAS / segundos));
+    }
+}
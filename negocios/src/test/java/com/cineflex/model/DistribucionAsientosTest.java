@@ -0,0 +1,57 @@
+package com.cineflex.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DistribucionAsientosTest {
+
+    @Test
+    void asignaOrdinalesPorFilasDeDiez() {
+        assertEquals(0, DistribucionAsientos.ordinal("A1"));
+        assertEquals(9, DistribucionAsientos.ordinal("A10"));
+        assertEquals(10, DistribucionAsientos.ordinal("B1"));
+        assertEquals(254, DistribucionAsientos.ordinal("Z5"));
+    }
+
+    @Test
+    void etiquetaEsLaInversaDeOrdinal() {
+        for (int i = 0; i < 260; i++) {
+            assertEquals(i, DistribucionAsientos.ordinal(DistribucionAsientos.etiqueta(i)));
+        }
+    }
+
+    @Test
+    void rechazaEtiquetasNoCanonicas() {
+        for (String etiqueta : new String[] {"A01", "A0", "A11", "a1", "1A", "A", "A100", "AB", "A-1", " A1", ""}) {
+            assertEquals(-1, DistribucionAsientos.ordinal(etiqueta), etiqueta);
+        }
+        assertEquals(-1, DistribucionAsientos.ordinal(null));
+    }
+
+    @Test
+    void rechazaAsientosFueraDeLaCapacidad() {
+        assertEquals(44, DistribucionAsientos.ordinal("E5", 45));
+        assertEquals(-1, DistribucionAsientos.ordinal("E6", 45));
+        assertEquals(-1, DistribucionAsientos.ordinal("F1", 45));
+    }
+
+    @Test
+    void listaLasEtiquetasEnOrden() {
+        assertEquals(List.of("A1", "A2"), DistribucionAsientos.etiquetas(2));
+        List<String> etiquetas = DistribucionAsientos.etiquetas(12);
+        assertEquals("A10", etiquetas.get(9));
+        assertEquals("B2", etiquetas.get(11));
+    }
+
+    @Test
+    void usaLaCapacidadPorDefectoSiLaFuncionNoLaIndica() {
+        Funcion funcion = new Funcion();
+        assertEquals(DistribucionAsientos.CAPACIDAD_POR_DEFECTO, DistribucionAsientos.capacidad(funcion));
+
+        funcion.setCapacidad(120);
+        assertEquals(120, DistribucionAsientos.capacidad(funcion));
+    }
+}
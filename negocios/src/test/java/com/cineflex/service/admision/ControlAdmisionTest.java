@@ -0,0 +1,66 @@
+package com.cineflex.service.admision;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ControlAdmisionTest {
+
+    private static final String RUTA = "/api/reservas";
+
+    private static ControlAdmision control(int maxClientes, double globalPorSegundo, int globalRafaga) {
+        AdmisionProperties.Regla regla = new AdmisionProperties.Regla("POST", RUTA,
+                globalPorSegundo, globalRafaga, 0.001, 1);
+        return new ControlAdmision(new AdmisionProperties(true, maxClientes, Map.of("crear", regla)),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void limitaAlClientePorSuCubo() {
+        ControlAdmision control = control(10, 0, 1);
+
+        assertTrue(control.admitir("POST", RUTA, "10.0.0.1").admitida());
+        ControlAdmision.Decision segunda = control.admitir("POST", RUTA, "10.0.0.1");
+        assertFalse(segunda.admitida());
+        assertEquals("crear", segunda.regla());
+        assertTrue(control.admitir("POST", RUTA, "10.0.0.2").admitida());
+    }
+
+    @Test
+    void conElMapaLlenoLosClientesNuevosSoloPasanPorElGlobal() {
+        ControlAdmision control = control(2, 0, 1);
+        control.admitir("POST", RUTA, "10.0.0.1");
+        control.admitir("POST", RUTA, "10.0.0.2");
+
+        // Los cubos existentes no están llenos, así que el barrido no libera sitio
+        for (int i = 3; i < 50; i++) {
+            assertTrue(control.admitir("POST", RUTA, "10.0.0." + i).admitida());
+            assertTrue(control.admitir("POST", RUTA, "10.0.0." + i).admitida());
+        }
+        assertFalse(control.admitir("POST", RUTA, "10.0.0.1").admitida());
+    }
+
+    @Test
+    void elGlobalSigueAcotandoALosDesbordados() {
+        ControlAdmision control = control(1, 0.001, 3);
+        control.admitir("POST", RUTA, "10.0.0.1");
+
+        assertTrue(control.admitir("POST", RUTA, "10.0.0.2").admitida());
+        assertTrue(control.admitir("POST", RUTA, "10.0.0.3").admitida());
+        assertFalse(control.admitir("POST", RUTA, "10.0.0.4").admitida());
+    }
+
+    @Test
+    void ignoraLasRutasSinRegla() {
+        ControlAdmision control = control(1, 0.001, 1);
+        control.admitir("POST", RUTA, "10.0.0.1");
+
+        assertTrue(control.admitir("GET", RUTA, "10.0.0.1").admitida());
+        assertTrue(control.admitir("POST", "/api/peliculas", "10.0.0.1").admitida());
+    }
+}
@@ -0,0 +1,130 @@
+package com.cineflex.service.admision;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CuboTokensTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long T0 = 5_000 * MS;
+
+    @Test
+    void admiteLaRafagaYLuegoIndicaLaEspera() {
+        CuboTokens cubo = new CuboTokens(10, 3, T0);
+
+        assertEquals(0, cubo.tomar(T0));
+        assertEquals(0, cubo.tomar(T0));
+        assertEquals(0, cubo.tomar(T0));
+        assertEquals(100 * MS, cubo.tomar(T0));
+    }
+
+    @Test
+    void seRecargaAlRitmoDeLaTasa() {
+        CuboTokens cubo = new CuboTokens(10, 3, T0);
+        for (int i = 0; i < 3; i++) {
+            cubo.tomar(T0);
+        }
+
+        assertEquals(40 * MS, cubo.tomar(T0 + 60 * MS));
+        assertEquals(0, cubo.tomar(T0 + 100 * MS));
+        assertEquals(100 * MS, cubo.tomar(T0 + 100 * MS));
+    }
+
+    @Test
+    void unRechazoNoConsumeToken() {
+        CuboTokens cubo = new CuboTokens(10, 1, T0);
+        assertEquals(0, cubo.tomar(T0));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(cubo.tomar(T0) > 0);
+        }
+
+        assertEquals(0, cubo.tomar(T0 + 100 * MS));
+    }
+
+    @Test
+    void devolverRestituyeUnToken() {
+        CuboTokens cubo = new CuboTokens(10, 2, T0);
+        cubo.tomar(T0);
+        cubo.tomar(T0);
+        assertTrue(cubo.tomar(T0) > 0);
+
+        cubo.devolver(T0);
+
+        assertEquals(0, cubo.tomar(T0));
+        assertTrue(cubo.tomar(T0) > 0);
+    }
+
+    @Test
+    void devolverNoSuperaLaCapacidad() {
+        CuboTokens cubo = new CuboTokens(10, 2, T0);
+        cubo.devolver(T0);
+        cubo.devolver(T0);
+
+        assertEquals(0, cubo.tomar(T0));
+        assertEquals(0, cubo.tomar(T0));
+        assertTrue(cubo.tomar(T0) > 0);
+    }
+
+    @Test
+    void estaLlenoCuandoSeRecargoPorCompleto() {
+        CuboTokens cubo = new CuboTokens(10, 2, T0);
+        assertTrue(cubo.lleno(T0));
+
+        cubo.tomar(T0);
+        cubo.tomar(T0);
+
+        assertFalse(cubo.lleno(T0 + 100 * MS));
+        assertTrue(cubo.lleno(T0 + 200 * MS));
+    }
+
+    @Test
+    void rechazaParametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> new CuboTokens(0, 1, T0));
+        assertThrows(IllegalArgumentException.class, () -> new CuboTokens(1, 0, T0));
+    }
+
+    @Test
+    void bajoConcurrenciaAdmiteExactamenteLaRafaga() throws Exception {
+        int hilos = 16;
+        int porHilo = 50;
+        CuboTokens cubo = new CuboTokens(1, 20, T0);
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> resultados = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                resultados.add(pool.submit(() -> {
+                    salida.await();
+                    int admitidos = 0;
+                    for (int i = 0; i < porHilo; i++) {
+                        if (cubo.tomar(T0) == 0) {
+                            admitidos++;
+                        }
+                    }
+                    return admitidos;
+                }));
+            }
+            salida.countDown();
+            int total = 0;
+            for (Future<Integer> r : resultados) {
+                total += r.get(10, TimeUnit.SECONDS);
+            }
+
+            assertEquals(20, total);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
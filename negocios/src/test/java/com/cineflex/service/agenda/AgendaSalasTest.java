@@ -0,0 +1,127 @@
+package com.cineflex.service.agenda;
+
+import com.cineflex.dto.funcion.FranjaLibre;
+import com.cineflex.exception.HorarioOcupadoException;
+import com.cineflex.repository.FuncionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AgendaSalasTest {
+
+    private static final LocalDate DIA = LocalDate.of(2026, 10, 20);
+    private static final long PELICULA = 7L;
+
+    private FuncionRepository funcionRepository;
+    private final List<Object[]> horarios = new ArrayList<>();
+    private AgendaSalas agenda;
+
+    @BeforeEach
+    void preparar() {
+        funcionRepository = mock(FuncionRepository.class);
+        when(funcionRepository.findHorariosConDuracion()).thenReturn(horarios);
+        // 15 minutos de limpieza, 120 por defecto, abierta de 10:00 a medianoche
+        agenda = new AgendaSalas(funcionRepository, mock(PlatformTransactionManager.class), 15, 120, "10:00", "00:00");
+        // Función 1 en "Sala 1" ocupa [14:00, 15:55)
+        horarios.add(new Object[] {1L, PELICULA, "Sala 1", DIA, LocalTime.of(14, 0), 100});
+    }
+
+    @Test
+    void rechazaUnHorarioQueSeSolapaEnLaMismaSala() {
+        HorarioOcupadoException e = assertThrows(HorarioOcupadoException.class,
+                () -> agenda.reservar(2L, PELICULA, " sala 1", DIA, LocalTime.of(15, 0), 90));
+
+        assertTrue(e.getMessage().contains("función 1"));
+    }
+
+    @Test
+    void admiteHorariosContiguosYOtrasSalas() {
+        assertNull(agenda.reservar(2L, PELICULA, "Sala 1", DIA, LocalTime.of(15, 55), 90));
+        // [12:00, 13:55) termina justo antes de la función 1
+        assertNull(agenda.reservar(3L, PELICULA, "Sala 1", DIA, LocalTime.of(12, 0), 100));
+        assertNull(agenda.reservar(4L, PELICULA, "Sala 2", DIA, LocalTime.of(14, 30), 100));
+    }
+
+    @Test
+    void detectaElSolapeConUnaFuncionLargaQueEmpezoMuchoAntes() {
+        agenda.reservar(2L, PELICULA, "Sala 2", DIA, LocalTime.of(10, 0), 600);
+
+        assertThrows(HorarioOcupadoException.class,
+                () -> agenda.reservar(3L, PELICULA, "Sala 2", DIA, LocalTime.of(19, 0), 60));
+    }
+
+    @Test
+    void moverUnaFuncionNoChocaConsigoMismaYRestaurarLaDevuelve() {
+        AgendaSalas.Intervalo previo = agenda.reservar(1L, PELICULA, "Sala 1", DIA, LocalTime.of(15, 0), 100);
+
+        assertEquals(LocalDateTime.of(DIA, LocalTime.of(14, 0)), previo.inicio());
+        assertThrows(HorarioOcupadoException.class,
+                () -> agenda.reservar(2L, PELICULA, "Sala 1", DIA, LocalTime.of(16, 0), 60));
+
+        agenda.restaurar(1L, previo);
+
+        assertNull(agenda.reservar(2L, PELICULA, "Sala 1", DIA, LocalTime.of(16, 0), 60));
+    }
+
+    @Test
+    void quitarLiberaElHorario() {
+        agenda.precargar();
+        agenda.quitar(1L);
+
+        assertNull(agenda.reservar(2L, PELICULA, "Sala 1", DIA, LocalTime.of(14, 0), 100));
+    }
+
+    @Test
+    void devuelveLosHuecosDentroDelHorarioDeApertura() {
+        List<FranjaLibre> franjas = agenda.franjasLibres("Sala 1", DIA, null);
+
+        assertEquals(List.of(
+                new FranjaLibre(DIA.atTime(10, 0), DIA.atTime(14, 0), 240),
+                new FranjaLibre(DIA.atTime(15, 55), DIA.plusDays(1).atStartOfDay(), 485)), franjas);
+    }
+
+    @Test
+    void sinFuncionesTodaLaJornadaEstaLibreYSeFiltraPorDuracion() {
+        assertEquals(List.of(new FranjaLibre(DIA.atTime(10, 0), DIA.plusDays(1).atStartOfDay(), 840)),
+                agenda.franjasLibres("Sala 9", DIA, null));
+
+        // 300 minutos más la limpieza sólo caben después de la función 1
+        List<FranjaLibre> franjas = agenda.franjasLibres("Sala 1", DIA, 300);
+        assertEquals(1, franjas.size());
+        assertEquals(DIA.atTime(15, 55), franjas.get(0).inicio());
+    }
+
+    @Test
+    void recalculaLosIntervalosAlCambiarLaDuracion() {
+        agenda.duracionCambiada(PELICULA, 180);
+
+        // La función 1 ahora ocupa [14:00, 17:15)
+        assertEquals(DIA.atTime(17, 15), agenda.franjasLibres("Sala 1", DIA, null).get(1).inicio());
+        assertThrows(HorarioOcupadoException.class,
+                () -> agenda.reservar(3L, 8L, "Sala 1", DIA, LocalTime.of(17, 0), 60));
+    }
+
+    @Test
+    void cargaLaAgendaUnaSolaVez() {
+        agenda.precargar();
+        agenda.franjasLibres("Sala 1", DIA, null);
+        agenda.reservar(2L, PELICULA, "Sala 2", DIA, LocalTime.of(10, 0), 60);
+
+        verify(funcionRepository, times(1)).findHorariosConDuracion();
+    }
+}
@@ -0,0 +1,83 @@
+package com.cineflex.service.asientos;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class CanalAsientosTest {
+
+    private static final Long FUNCION = 1L;
+
+    private CanalAsientos canal;
+
+    @BeforeEach
+    void preparar() {
+        canal = new CanalAsientos(mock(MapaAsientos.class), 250, 15, 30, 32, 2);
+    }
+
+    @AfterEach
+    void cerrar() {
+        canal.cerrar();
+    }
+
+    @Test
+    void elUltimoEnSalirQuitaElGrupoYElSiguienteLoRecrea() {
+        CanalAsientos.Suscriptor a = canal.registrar(FUNCION, new SseEmitter());
+        CanalAsientos.Suscriptor b = canal.registrar(FUNCION, new SseEmitter());
+        canal.registrar(2L, new SseEmitter());
+        assertEquals(3, canal.conexionesActivas());
+
+        canal.quitar(FUNCION, a);
+        canal.quitar(FUNCION, a);
+        assertEquals(2, canal.conexionesActivas());
+
+        canal.quitar(FUNCION, b);
+        assertEquals(1, canal.conexionesActivas());
+
+        canal.registrar(FUNCION, new SseEmitter());
+        assertEquals(2, canal.conexionesActivas());
+    }
+
+    @Test
+    void unaSuscripcionConcurrenteConLaUltimaBajaNoQuedaHuerfana() throws Exception {
+        int hilos = 8;
+        int vueltas = 2_000;
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                tareas.add(pool.submit(() -> {
+                    salida.await();
+                    for (int i = 0; i < vueltas; i++) {
+                        // Cada alta compite con la baja que vacía el grupo en otro hilo
+                        canal.quitar(FUNCION, canal.registrar(FUNCION, new SseEmitter()));
+                    }
+                    canal.registrar(FUNCION, new SseEmitter());
+                    return null;
+                }));
+            }
+            salida.countDown();
+            for (Future<?> t : tareas) {
+                t.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Cada hilo deja un suscriptor vivo y todos deben estar en el grupo publicado
+        assertEquals(hilos, canal.conexionesActivas());
+    }
+}
@@ -0,0 +1,94 @@
+package com.cineflex.service.asientos;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuedaTemporalTest {
+
+    private static final long TICK = 100;
+    private static final long T0 = 10_000;
+
+    @Test
+    void venceEnElTickQueCubreElVencimiento() {
+        RuedaTemporal<String> rueda = new RuedaTemporal<>(TICK, 8, T0);
+        rueda.programar(1, T0 + 250, "a");
+
+        assertEquals(List.of(), rueda.avanzar(T0 + 200));
+        assertEquals(List.of("a"), rueda.avanzar(T0 + 300));
+        assertEquals(0, rueda.tamano());
+    }
+
+    @Test
+    void loYaVencidoCaeEnElTickSiguiente() {
+        RuedaTemporal<String> rueda = new RuedaTemporal<>(TICK, 8, T0);
+        rueda.programar(1, T0 - 5_000, "a");
+
+        assertEquals(List.of(), rueda.avanzar(T0 + 99));
+        assertEquals(List.of("a"), rueda.avanzar(T0 + 100));
+    }
+
+    @Test
+    void noRetrocedeNiRepiteTicks() {
+        RuedaTemporal<String> rueda = new RuedaTemporal<>(TICK, 8, T0);
+        rueda.programar(1, T0 + 100, "a");
+
+        assertEquals(List.of("a"), rueda.avanzar(T0 + 100));
+        assertEquals(List.of(), rueda.avanzar(T0 + 100));
+        assertEquals(List.of(), rueda.avanzar(T0));
+    }
+
+    @Test
+    void cancelarQuitaLaEntrada() {
+        RuedaTemporal<String> rueda = new RuedaTemporal<>(TICK, 8, T0);
+        rueda.programar(1, T0 + 100, "a");
+        rueda.programar(2, T0 + 100, "b");
+
+        assertTrue(rueda.cancelar(1));
+        assertFalse(rueda.cancelar(1));
+        assertEquals(1, rueda.tamano());
+        assertEquals(List.of("b"), rueda.avanzar(T0 + 100));
+    }
+
+    @Test
+    void reprogramarReemplazaElVencimientoAnterior() {
+        RuedaTemporal<String> rueda = new RuedaTemporal<>(TICK, 8, T0);
+        rueda.programar(1, T0 + 100, "a");
+        rueda.programar(1, T0 + 300, "a2");
+
+        assertEquals(1, rueda.tamano());
+        assertEquals(List.of(), rueda.avanzar(T0 + 200));
+        assertEquals(List.of("a2"), rueda.avanzar(T0 + 300));
+    }
+
+    @Test
+    void lasEntradasDeVueltasPosterioresEsperanSuTick() {
+        // 8 ranuras de 100 ms: lo que vence a 1500 ms comparte ranura con lo que vence a 700 ms
+        RuedaTemporal<String> rueda = new RuedaTemporal<>(TICK, 8, T0);
+        rueda.programar(1, T0 + 1_500, "lejana");
+        rueda.programar(2, T0 + 700, "cercana");
+
+        assertEquals(List.of("cercana"), rueda.avanzar(T0 + 700));
+        assertEquals(List.of(), rueda.avanzar(T0 + 1_400));
+        assertEquals(List.of("lejana"), rueda.avanzar(T0 + 1_500));
+    }
+
+    @Test
+    void trasUnaPausaLargaVenceTodoUnaSolaVez() {
+        RuedaTemporal<String> rueda = new RuedaTemporal<>(TICK, 8, T0);
+        for (int i = 1; i <= 20; i++) {
+            rueda.programar(i, T0 + i * 100L, "e" + i);
+        }
+
+        List<String> vencidas = rueda.avanzar(T0 + 60_000);
+
+        assertEquals(20, vencidas.size());
+        assertEquals(20, vencidas.stream().distinct().count());
+        assertEquals(0, rueda.tamano());
+        assertEquals(List.of(), rueda.avanzar(T0 + 120_000));
+    }
+}
@@ -0,0 +1,116 @@
+package com.cineflex.service.estadisticas;
+
+import com.cineflex.model.Reserva;
+import com.cineflex.repository.ReservaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EstadisticasReservasTest {
+
+    private static final Long FUNCION = 7L;
+    // 03:00 UTC del 20 es todavía el 19 en Bogotá
+    private static final Instant CREADA_EN = Instant.parse("2026-10-20T03:00:00Z");
+    private static final LocalDate DIA = LocalDate.of(2026, 10, 19);
+
+    private ReservaRepository reservaRepository;
+    private EstadisticasReservas estadisticas;
+    private final List<Object[]> conteo = new ArrayList<>();
+    private final List<Object[]> snapshot = new ArrayList<>();
+    private Runnable duranteElConteo = () -> { };
+
+    @BeforeEach
+    void preparar() {
+        reservaRepository = mock(ReservaRepository.class);
+        when(reservaRepository.contarPorFuncionEstadoYDia(anyString())).thenAnswer(i -> {
+            duranteElConteo.run();
+            return conteo;
+        });
+        when(reservaRepository.findEstadosYVersiones(any())).thenReturn(snapshot);
+        estadisticas = new EstadisticasReservas(reservaRepository, mock(PlatformTransactionManager.class), "America/Bogota");
+    }
+
+    @Test
+    void reconstruyeDesdeElConteoAgrupado() {
+        conteo.add(new Object[] {FUNCION, "CREADA", Date.valueOf(DIA), 3L});
+        conteo.add(new Object[] {FUNCION, "PAGADA", Date.valueOf(DIA), 2L});
+        conteo.add(new Object[] {8L, "CANCELADA", Date.valueOf(DIA.plusDays(1)), 1L});
+
+        estadisticas.reconciliar();
+
+        assertEquals(3L, estadisticas.deFuncion(FUNCION).get(Reserva.Estado.CREADA));
+        assertEquals(5L, estadisticas.activas());
+        assertEquals(2L, estadisticas.delDia(DIA).get(Reserva.Estado.PAGADA));
+        assertEquals(1L, estadisticas.delDia(DIA.plusDays(1)).get(Reserva.Estado.CANCELADA));
+    }
+
+    @Test
+    void unCambioQueElConteoYaVioNoSeRepite() {
+        // La reserva 1 se confirmó antes del conteo, pero su aviso llega mientras se reconstruye
+        conteo.add(new Object[] {FUNCION, "CREADA", Date.valueOf(DIA), 1L});
+        snapshot.add(new Object[] {1L, Reserva.Estado.CREADA, 0L});
+        duranteElConteo = () -> estadisticas.creada(FUNCION, 1L, 0L, CREADA_EN);
+
+        estadisticas.reconciliar();
+
+        assertEquals(1L, estadisticas.deFuncion(FUNCION).get(Reserva.Estado.CREADA));
+        assertEquals(1L, estadisticas.delDia(DIA).get(Reserva.Estado.CREADA));
+    }
+
+    @Test
+    void seRepitenLosCambiosPosterioresAlSnapshot() {
+        // Reserva 1: contada como CREADA con versión 0 y pagada después del snapshot.
+        // Reserva 2: creada después del snapshot. Reserva 3: borrada después del snapshot
+        conteo.add(new Object[] {FUNCION, "CREADA", Date.valueOf(DIA), 2L});
+        snapshot.add(new Object[] {1L, Reserva.Estado.CREADA, 0L});
+        snapshot.add(new Object[] {3L, Reserva.Estado.CREADA, 0L});
+        duranteElConteo = () -> {
+            estadisticas.transicion(FUNCION, 1L, 1L, CREADA_EN, Reserva.Estado.CREADA, Reserva.Estado.PAGADA);
+            estadisticas.creada(FUNCION, 2L, 0L, CREADA_EN);
+            estadisticas.eliminada(FUNCION, 3L, CREADA_EN, Reserva.Estado.CREADA);
+        };
+
+        estadisticas.reconciliar();
+
+        Map<Reserva.Estado, Long> deFuncion = estadisticas.deFuncion(FUNCION);
+        assertEquals(1L, deFuncion.get(Reserva.Estado.CREADA));
+        assertEquals(1L, deFuncion.get(Reserva.Estado.PAGADA));
+    }
+
+    @Test
+    void unaReservaCreadaYBorradaAntesDelSnapshotNoCuenta() {
+        // Ambos avisos llegan durante la reconstrucción; el conteo no la incluye
+        duranteElConteo = () -> {
+            estadisticas.creada(FUNCION, 4L, 0L, CREADA_EN);
+            estadisticas.eliminada(FUNCION, 4L, CREADA_EN, Reserva.Estado.CREADA);
+        };
+
+        estadisticas.reconciliar();
+
+        assertEquals(0L, estadisticas.deFuncion(FUNCION).get(Reserva.Estado.CREADA));
+    }
+
+    @Test
+    void losCambiosTrasPublicarSeAplicanSobreLosContadoresNuevos() {
+        conteo.add(new Object[] {FUNCION, "CREADA", Date.valueOf(DIA), 1L});
+        estadisticas.reconciliar();
+
+        estadisticas.transicion(FUNCION, 1L, 1L, CREADA_EN, Reserva.Estado.CREADA, Reserva.Estado.CANCELADA);
+
+        assertEquals(0L, estadisticas.deFuncion(FUNCION).get(Reserva.Estado.CREADA));
+        assertEquals(1L, estadisticas.delDia(DIA).get(Reserva.Estado.CANCELADA));
+    }
+}
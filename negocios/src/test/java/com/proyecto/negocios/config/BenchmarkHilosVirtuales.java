@@ -0,0 +1,143 @@
+package com.proyecto.negocios.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compara el manejo de peticiones en hilos de plataforma (un pool fijo como el de Tomcat, 200 hilos,
+ * contra Hikari directamente) y en hilos virtuales (uno por petición, detrás de
+ * {@link ConexionesLimitadas}). Cada ronda lanza a la vez peticiones que consultan la base de datos
+ * (una consulta que tarda cineflex.benchmark.latencia-ms) y otras que sólo leen memoria, como
+ * /api/stats, y mide cada una desde que llega hasta que termina, incluida la espera por un hilo o
+ * una conexión. No sigue el patrón *Test, así que el build normal no lo ejecuta:
+ * {@code mvn test -Dtest=BenchmarkHilosVirtuales}. Usa H2 en memoria con un pool Hikari del tamaño
+ * del de producción; los resultados dependen mucho de los núcleos disponibles.
+ */
+class BenchmarkHilosVirtuales {
+
+    private static final Logger log = LoggerFactory.getLogger(BenchmarkHilosVirtuales.class);
+    private static final int PETICIONES = Integer.getInteger("cineflex.benchmark.peticiones", 300);
+    private static final int RONDAS = Integer.getInteger("cineflex.benchmark.rondas", 3);
+    private static final long LATENCIA_MS = Long.getLong("cineflex.benchmark.latencia-ms", 100);
+    private static final int HILOS_TOMCAT = 200;
+    // Los mismos valores que application-prod.properties
+    private static final int POOL = 10;
+    private static final long ESPERA_MS = 2000;
+    private static final int COLA_MAXIMA = 500;
+    private static final int[] DATOS = ThreadLocalRandom.current().ints(50_000).toArray();
+
+    private static volatile long sumidero;
+
+    private record Resultado(boolean conBaseDatos, boolean rechazada, long nanos) { }
+
+    @Test
+    void plataformaContraVirtuales() throws Exception {
+        try (HikariDataSource hikari = pool()) {
+            try (Connection c = hikari.getConnection(); Statement s = c.createStatement()) {
+                // Simula la latencia de una consulta real; Thread.sleep está sobrecargado y H2 no lo acepta como alias
+                s.execute("create alias if not exists dormir as 'void dormir(long ms) throws Exception { Thread.sleep(ms); }'");
+            }
+            DataSource limitado = new ConexionesLimitadas(hikari, POOL, ESPERA_MS, COLA_MAXIMA);
+            Supplier<ExecutorService> plataforma = () -> Executors.newFixedThreadPool(HILOS_TOMCAT);
+            Supplier<ExecutorService> virtuales = Executors::newVirtualThreadPerTaskExecutor;
+            // Una ronda de calentamiento por modo antes de medir
+            ronda(plataforma.get(), hikari);
+            ronda(virtuales.get(), limitado);
+            for (int ronda = 1; ronda <= RONDAS; ronda++) {
+                reportar("plataforma, " + HILOS_TOMCAT + " hilos", ronda, ronda(plataforma.get(), hikari));
+                reportar("virtuales + limitador", ronda, ronda(virtuales.get(), limitado));
+            }
+        }
+    }
+
+    private static HikariDataSource pool() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(System.getProperty("cineflex.benchmark.url", "jdbc:h2:mem:benchmark-hilos;DB_CLOSE_DELAY=-1"));
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(POOL);
+        config.setMinimumIdle(2);
+        config.setConnectionTimeout(5000);
+        return new HikariDataSource(config);
+    }
+
+    private static List<Resultado> ronda(ExecutorService hilos, DataSource dataSource) throws Exception {
+        List<Future<Resultado>> pendientes = new ArrayList<>(2 * PETICIONES);
+        // close espera a que terminen todas
+        try (hilos) {
+            for (int i = 0; i < PETICIONES; i++) {
+                long llegadaConsulta = System.nanoTime();
+                pendientes.add(hilos.submit(() -> consultar(dataSource, llegadaConsulta)));
+                long llegadaMemoria = System.nanoTime();
+                pendientes.add(hilos.submit(() -> leerMemoria(llegadaMemoria)));
+            }
+        }
+        List<Resultado> resultados = new ArrayList<>(pendientes.size());
+        for (Future<Resultado> pendiente : pendientes) {
+            resultados.add(pendiente.get());
+        }
+        assertEquals(2 * PETICIONES, resultados.size());
+        return resultados;
+    }
+
+    private static Resultado consultar(DataSource dataSource, long llegada) {
+        try (Connection c = dataSource.getConnection(); Statement s = c.createStatement()) {
+            s.execute("call dormir(" + LATENCIA_MS + ")");
+            return new Resultado(true, false, System.nanoTime() - llegada);
+        } catch (SQLException e) {
+            // Limitador saturado o timeout de Hikari: en la aplicación, un 503
+            return new Resultado(true, true, System.nanoTime() - llegada);
+        }
+    }
+
+    private static Resultado leerMemoria(long llegada) {
+        long suma = 0;
+        for (int dato : DATOS) {
+            suma += dato;
+        }
+        sumidero = suma;
+        return new Resultado(false, false, System.nanoTime() - llegada);
+    }
+
+    private static void reportar(String modo, int ronda, List<Resultado> resultados) {
+        long[] consultas = latencias(resultados, true);
+        long[] memoria = latencias(resultados, false);
+        long rechazadas = resultados.stream().filter(Resultado::rechazada).count();
+        log.info("Benchmark hilos [{}] ronda {}: BD {} ok / {} rechazadas, p50 {} ms, p99 {} ms; memoria p50 {} ms, p99 {} ms",
+                modo, ronda, consultas.length, rechazadas, percentil(consultas, 50), percentil(consultas, 99),
+                percentil(memoria, 50), percentil(memoria, 99));
+    }
+
+    private static long[] latencias(List<Resultado> resultados, boolean conBaseDatos) {
+        return resultados.stream()
+                .filter(r -> r.conBaseDatos() == conBaseDatos && !r.rechazada())
+                .mapToLong(r -> r.nanos() / 1_000_000)
+                .sorted()
+                .toArray();
+    }
+
+    private static long percentil(long[] ordenadas, int percentil) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int i = (int) Math.ceil(percentil / 100.0 * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, i)];
+    }
+}
@@ -0,0 +1,64 @@
+package com.proyecto.negocios.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FallosLoginTest {
+
+    @Test
+    void bloqueaUnEmailTrasElMaximoDeFallos() {
+        FallosLogin fallos = new FallosLogin(new SimpleMeterRegistry(), 900, 3, 100, 1_000, 2_000);
+        for (int i = 0; i < 3; i++) {
+            fallos.intentar("Ana@Correo.com", "10.0.0." + i);
+        }
+
+        assertThrows(DemasiadosIntentosException.class, () -> fallos.intentar(" ana@correo.com", "10.0.0.9"));
+    }
+
+    @Test
+    void unExitoOlvidaLosFallosDelEmail() {
+        FallosLogin fallos = new FallosLogin(new SimpleMeterRegistry(), 900, 2, 100, 1_000, 2_000);
+        fallos.intentar("ana@correo.com", "10.0.0.1");
+        fallos.registrarExito(fallos.intentar("ana@correo.com", "10.0.0.1"));
+
+        fallos.intentar("ana@correo.com", "10.0.0.1");
+        fallos.intentar("ana@correo.com", "10.0.0.1");
+        assertThrows(DemasiadosIntentosException.class, () -> fallos.intentar("ana@correo.com", "10.0.0.1"));
+    }
+
+    @Test
+    void conElMapaDeEmailsLlenoLosEmailsNuevosSoloCuentanContraSuIp() {
+        FallosLogin fallos = new FallosLogin(new SimpleMeterRegistry(), 900, 5, 20, 100, 2_000);
+        // Un ataque con muchos emails desde IPs distintas, cada una por debajo de su límite
+        for (int i = 0; i < 1_000; i++) {
+            fallos.intentar("victima" + i + "@correo.com", "10.0.0." + (i % 50));
+        }
+
+        // Un usuario legítimo con un email que no se estaba siguiendo puede seguir entrando
+        for (int i = 0; i < 10; i++) {
+            assertDoesNotThrow(() -> fallos.intentar("nuevo@correo.com", "192.168.1.1"));
+        }
+        for (int i = 10; i < 20; i++) {
+            fallos.intentar("nuevo@correo.com", "192.168.1.1");
+        }
+        assertThrows(DemasiadosIntentosException.class, () -> fallos.intentar("nuevo@correo.com", "192.168.1.1"));
+    }
+
+    @Test
+    void conElMapaDeIpsLlenoLasIpsNuevasCompartenUnaVentanaConSuPropioLimite() {
+        FallosLogin fallos = new FallosLogin(new SimpleMeterRegistry(), 900, 5, 20, 10, 50);
+        for (int i = 0; i < 10; i++) {
+            fallos.intentar("a" + i + "@correo.com", "10.0.0." + i);
+        }
+
+        // Mucho más que max-por-ip entre IPs nuevas antes de llegar al límite de la ventana común
+        for (int i = 0; i < 50; i++) {
+            String ip = "172.16.0." + i;
+            assertDoesNotThrow(() -> fallos.intentar(null, ip));
+        }
+        assertThrows(DemasiadosIntentosException.class, () -> fallos.intentar(null, "172.16.1.1"));
+    }
+}
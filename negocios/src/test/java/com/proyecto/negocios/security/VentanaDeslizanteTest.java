@@ -0,0 +1,140 @@
+package com.proyecto.negocios.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VentanaDeslizanteTest {
+
+    private static final long DURACION = 1_000;
+    private static final long T0 = 10_000;
+
+    @Test
+    void rechazaAlLlegarAlMaximo() {
+        VentanaDeslizante ventana = new VentanaDeslizante(DURACION, T0);
+
+        assertEquals(10, ventana.intentar(3, T0));
+        assertEquals(10, ventana.intentar(3, T0 + 100));
+        assertEquals(10, ventana.intentar(3, T0 + 200));
+        assertEquals(-1, ventana.intentar(3, T0 + 300));
+        assertEquals(3.0, ventana.estimar(T0 + 300));
+    }
+
+    @Test
+    void laVentanaAnteriorPesaPorLoQueTodaviaSolapa() {
+        VentanaDeslizante ventana = new VentanaDeslizante(DURACION, T0);
+        for (int i = 0; i < 4; i++) {
+            ventana.intentar(4, T0);
+        }
+
+        // A mitad de la ventana siguiente los 4 intentos previos cuentan como 2
+        assertEquals(2.0, ventana.estimar(T0 + 1_500));
+        assertEquals(11, ventana.intentar(4, T0 + 1_500));
+        assertEquals(11, ventana.intentar(4, T0 + 1_500));
+        assertEquals(-1, ventana.intentar(4, T0 + 1_500));
+    }
+
+    @Test
+    void descontarDeshaceUnIntentoDeLaVentanaActualOAnterior() {
+        VentanaDeslizante ventana = new VentanaDeslizante(DURACION, T0);
+        long contada = ventana.intentar(2, T0);
+        ventana.intentar(2, T0);
+        assertEquals(-1, ventana.intentar(2, T0));
+
+        ventana.descontar(contada, T0);
+        assertEquals(10, ventana.intentar(2, T0));
+
+        ventana.descontar(contada, T0 + 1_000);
+        assertEquals(1.0, ventana.estimar(T0 + 1_000));
+    }
+
+    @Test
+    void descontarUnaVentanaVencidaNoHaceNada() {
+        VentanaDeslizante ventana = new VentanaDeslizante(DURACION, T0);
+        long contada = ventana.intentar(5, T0);
+        ventana.intentar(5, T0 + 2_000);
+
+        ventana.descontar(contada, T0 + 2_000);
+
+        assertEquals(1.0, ventana.estimar(T0 + 2_000));
+    }
+
+    @Test
+    void calculaLaEsperaHastaBajarDelMaximo() {
+        VentanaDeslizante ventana = new VentanaDeslizante(DURACION, T0);
+        assertEquals(0, ventana.esperaHastaBajarDe(2, T0));
+
+        ventana.intentar(2, T0);
+        ventana.intentar(2, T0);
+
+        // Lleno en la ventana actual: hay que esperar a que termine
+        assertEquals(1_000, ventana.esperaHastaBajarDe(2, T0));
+        assertEquals(500, ventana.esperaHastaBajarDe(2, T0 + 500));
+        assertEquals(0, ventana.esperaHastaBajarDe(2, T0 + 1_000));
+        // Para bajar de 1 hace falta que la anterior pese menos de la mitad
+        assertEquals(500, ventana.esperaHastaBajarDe(1, T0 + 1_000));
+    }
+
+    @Test
+    void quedaVaciaTrasDosVentanasSinIntentos() {
+        VentanaDeslizante ventana = new VentanaDeslizante(DURACION, T0);
+        assertTrue(ventana.vacia(T0));
+        ventana.intentar(5, T0);
+
+        assertFalse(ventana.vacia(T0 + 1_000));
+        assertTrue(ventana.vacia(T0 + 2_000));
+    }
+
+    @Test
+    void reiniciarBorraLaCuenta() {
+        VentanaDeslizante ventana = new VentanaDeslizante(DURACION, T0);
+        ventana.intentar(1, T0);
+        assertEquals(-1, ventana.intentar(1, T0));
+
+        ventana.reiniciar(T0);
+
+        assertEquals(10, ventana.intentar(1, T0));
+    }
+
+    @Test
+    void bajoConcurrenciaNoSuperaElMaximo() throws Exception {
+        int hilos = 16;
+        VentanaDeslizante ventana = new VentanaDeslizante(DURACION, T0);
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> resultados = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                resultados.add(pool.submit(() -> {
+                    salida.await();
+                    int admitidos = 0;
+                    for (int i = 0; i < 20; i++) {
+                        if (ventana.intentar(5, T0) >= 0) {
+                            admitidos++;
+                        }
+                    }
+                    return admitidos;
+                }));
+            }
+            salida.countDown();
+            int total = 0;
+            for (Future<Integer> r : resultados) {
+                total += r.get(10, TimeUnit.SECONDS);
+            }
+
+            assertEquals(5, total);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
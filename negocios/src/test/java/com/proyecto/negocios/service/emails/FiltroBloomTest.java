@@ -0,0 +1,98 @@
+package com.proyecto.negocios.service.emails;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FiltroBloomTest {
+
+    @Test
+    void seDimensionaSegunElementosYProbabilidad() {
+        FiltroBloom filtro = new FiltroBloom(1_000, 0.01);
+
+        // m = -n ln p / (ln 2)^2 = 9586 bits, redondeado a palabras de 64
+        assertEquals(9_600, filtro.numeroBits());
+        assertEquals(7, filtro.numeroHashes());
+    }
+
+    @Test
+    void vacioNoContieneNada() {
+        FiltroBloom filtro = new FiltroBloom(100, 0.01);
+
+        assertFalse(filtro.puedeContener("ana@correo.com"));
+        assertFalse(filtro.puedeContener(""));
+    }
+
+    @Test
+    void noTieneFalsosNegativos() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.agregar("usuario" + i + "@correo.com");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filtro.puedeContener("usuario" + i + "@correo.com"));
+        }
+    }
+
+    @Test
+    void losFalsosPositivosRondanLaProbabilidadPedida() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.agregar("usuario" + i + "@correo.com");
+        }
+
+        int falsos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtro.puedeContener("otro" + i + "@correo.com")) {
+                falsos++;
+            }
+        }
+
+        assertTrue(falsos < 2_000, "falsos positivos: " + falsos);
+    }
+
+    @Test
+    void lasAltasConcurrentesNoPierdenBits() throws Exception {
+        int hilos = 8;
+        int porHilo = 2_000;
+        FiltroBloom filtro = new FiltroBloom(hilos * porHilo, 0.01);
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                int hilo = h;
+                tareas.add(pool.submit(() -> {
+                    salida.await();
+                    for (int i = 0; i < porHilo; i++) {
+                        filtro.agregar("h" + hilo + "-" + i + "@correo.com");
+                    }
+                    return null;
+                }));
+            }
+            salida.countDown();
+            for (Future<?> t : tareas) {
+                t.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (int h = 0; h < hilos; h++) {
+            for (int i = 0; i < porHilo; i++) {
+                assertTrue(filtro.puedeContener("h" + h + "-" + i + "@correo.com"));
+            }
+        }
+    }
+}